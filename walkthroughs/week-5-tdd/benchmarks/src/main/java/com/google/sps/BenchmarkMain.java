@@ -0,0 +1,45 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Accepts the usual JMH command line and always attaches
+ * the gc profiler, so every run also reports the allocation rate per operation.
+ */
+public final class BenchmarkMain {
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp() || commandLine.shouldList()
+        || commandLine.shouldListWithParams() || commandLine.shouldListProfilers()
+        || commandLine.shouldListResultFormats()) {
+      // Listing and help are handled by the stock JMH entry point.
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+
+    Options options = new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class).build();
+    new Runner(options).run();
+  }
+
+  private BenchmarkMain() {
+    // Disallow instances.
+  }
+}
@@ -0,0 +1,71 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code CalendarSnapshot.findConflicts()}, which backs {@code /conflicts}, for a random
+ * proposed meeting and group of attendees.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConflictsBenchmark {
+  @Param({"10000", "100000"})
+  private int eventCount;
+
+  @Param({"3"})
+  private int attendeesPerEvent;
+
+  @Param({"8"})
+  private int requestSize;
+
+  @Param({"1000"})
+  private int people;
+
+  private CalendarSnapshot snapshot;
+  private TimeRange proposed;
+  private List<String> attendees;
+
+  @Setup
+  public void setUp() {
+    SyntheticCalendar calendar = new SyntheticCalendar(people, 42);
+    snapshot = new SnapshotCalendar(calendar.events(eventCount, attendeesPerEvent)).snapshot();
+    proposed = calendar.randomRange();
+    attendees = new ArrayList<>(calendar.request(requestSize, 0, 30).getAttendees());
+  }
+
+  @Benchmark
+  public List<Conflict> findConflicts() {
+    return snapshot.findConflicts(proposed, attendees);
+  }
+}
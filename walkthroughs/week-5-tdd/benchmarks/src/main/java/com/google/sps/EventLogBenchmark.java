@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many events per second can be added through an {@link EventLog}, with every add
+ * forced to disk before it returns. One writer pays for a force per event; with many writers the
+ * group commit lets them share each force.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventLogBenchmark {
+  private Path file;
+  private EventLog log;
+  private List<Event> events;
+  private final AtomicInteger next = new AtomicInteger();
+
+  @Setup
+  public void setUp() throws IOException {
+    file = Files.createTempFile("events", ".wal");
+    log = EventLog.open(file, new SnapshotCalendar());
+    events = new SyntheticCalendar(1000, 42).events(10_000, 3);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    log.close();
+    Files.delete(file);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public long addOneWriter() throws IOException {
+    return add();
+  }
+
+  @Benchmark
+  @Threads(16)
+  public long addManyWriters() throws IOException {
+    return add();
+  }
+
+  private long add() throws IOException {
+    return log.add(events.get(Math.floorMod(next.getAndIncrement(), events.size())));
+  }
+}
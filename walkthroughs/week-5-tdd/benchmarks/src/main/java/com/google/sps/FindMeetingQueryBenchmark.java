@@ -0,0 +1,87 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@code FindMeetingQuery.query()} over a synthetic one-day calendar: scanning the raw
+ * events, scanning the id columns of an {@code EventStore}, and through an {@code EventIndex}.
+ * Throughput mode gives queries per second and sample mode gives the latency percentiles.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindMeetingQueryBenchmark {
+  @Param({"1000", "10000", "100000"})
+  private int eventCount;
+
+  @Param({"3"})
+  private int attendeesPerEvent;
+
+  // Number of mandatory attendees in the request; a quarter as many optional ones are added.
+  @Param({"2", "8", "32"})
+  private int requestSize;
+
+  @Param({"1000"})
+  private int people;
+
+  private Collection<Event> events;
+  private EventIndex index;
+  private EventStore store;
+  private MeetingRequest request;
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  @Setup
+  public void setUp() {
+    SyntheticCalendar calendar = new SyntheticCalendar(people, 42);
+    List<Event> generated = calendar.events(eventCount, attendeesPerEvent);
+    events = generated;
+    index = new EventIndex(generated);
+    store = new EventStore(generated);
+    request = calendar.request(requestSize, Math.max(1, requestSize / 4), 30);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryEvents() {
+    return query.query(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryStore() {
+    return query.query(store, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndex() {
+    return query.query(index, request);
+  }
+}
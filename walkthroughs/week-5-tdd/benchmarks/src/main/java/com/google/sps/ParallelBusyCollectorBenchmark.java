@@ -0,0 +1,109 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the serial and the parallel busy-time collection on the same calendar, for both a plain
+ * collection of events and a store, to find the calendar size at which the parallel path starts
+ * to win. {@code ParallelBusyCollector.PARALLEL_THRESHOLD} should sit at that crossover.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelBusyCollectorBenchmark {
+  @Param({"1000", "10000", "100000", "1000000"})
+  private int eventCount;
+
+  @Param({"3"})
+  private int attendeesPerEvent;
+
+  @Param({"8"})
+  private int requestSize;
+
+  @Param({"1000"})
+  private int people;
+
+  private List<Event> events;
+  private EventStore store;
+  private Set<String> mandatory;
+  private Set<String> optional;
+  private long[] mandatoryIds;
+  private long[] optionalIds;
+  private final SlotSweep sweep = new SlotSweep();
+
+  @Setup
+  public void setUp() {
+    SyntheticCalendar calendar = new SyntheticCalendar(people, 42);
+    events = calendar.events(eventCount, attendeesPerEvent);
+    store = new EventStore(events);
+    MeetingRequest request = calendar.request(requestSize - requestSize / 4, requestSize / 4, 30);
+    mandatory = new HashSet<>(request.getAttendees());
+    optional = new HashSet<>(request.getOptionalAttendees());
+    mandatoryIds = store.getDictionary().toBitset(mandatory);
+    optionalIds = store.getDictionary().toBitset(optional);
+  }
+
+  @Benchmark
+  public SlotSweep.Result eventsSerial() {
+    sweep.reset();
+    FindMeetingQuery.addBusyTimes(
+        events, mandatory, optional, TimeRange.WHOLE_DAY, sweep, Integer.MAX_VALUE);
+    return run();
+  }
+
+  @Benchmark
+  public SlotSweep.Result eventsParallel() {
+    sweep.reset();
+    FindMeetingQuery.addBusyTimes(events, mandatory, optional, TimeRange.WHOLE_DAY, sweep, 0);
+    return run();
+  }
+
+  @Benchmark
+  public SlotSweep.Result storeSerial() {
+    sweep.reset();
+    store.addBusyTimes(mandatoryIds, optionalIds, TimeRange.WHOLE_DAY, sweep, Integer.MAX_VALUE);
+    return run();
+  }
+
+  @Benchmark
+  public SlotSweep.Result storeParallel() {
+    sweep.reset();
+    store.addBusyTimes(mandatoryIds, optionalIds, TimeRange.WHOLE_DAY, sweep, 0);
+    return run();
+  }
+
+  private SlotSweep.Result run() {
+    return sweep.run(TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end(), 30);
+  }
+}
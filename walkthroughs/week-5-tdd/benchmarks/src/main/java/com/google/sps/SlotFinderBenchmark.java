@@ -0,0 +1,89 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the two slot finders on the same busy intervals to find the request size at which the
+ * bitmap engine overtakes the sorting sweep. {@code FindMeetingQuery.BITMAP_MIN_ATTENDEES} should
+ * sit at that crossover.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlotFinderBenchmark {
+  // Number of attendees in the request; a quarter of them are optional.
+  @Param({"2", "4", "8", "16", "32", "64"})
+  private int attendees;
+
+  // Number of merged busy intervals each attendee has during the day.
+  @Param({"4"})
+  private int busyPerAttendee;
+
+  private int[] starts;
+  private int[] ends;
+  private boolean[] optional;
+  private final SlotSweep slotSweep = new SlotSweep();
+  private final BitmapSweep bitmapSweep = new BitmapSweep();
+
+  @Setup
+  public void setUp() {
+    SyntheticCalendar calendar = new SyntheticCalendar(1, 42);
+    int count = attendees * busyPerAttendee;
+    int optionalFrom = count - (attendees / 4) * busyPerAttendee;
+    starts = new int[count];
+    ends = new int[count];
+    optional = new boolean[count];
+    for (int i = 0; i < count; i++) {
+      TimeRange range = calendar.randomRange();
+      starts[i] = range.start();
+      ends[i] = range.end();
+      optional[i] = i >= optionalFrom;
+    }
+  }
+
+  @Benchmark
+  public SlotSweep.Result slotSweep() {
+    return run(slotSweep);
+  }
+
+  @Benchmark
+  public SlotSweep.Result bitmapSweep() {
+    return run(bitmapSweep);
+  }
+
+  private SlotSweep.Result run(SlotFinder finder) {
+    finder.reset();
+    for (int i = 0; i < starts.length; i++) {
+      finder.addBusy(starts[i], ends[i], optional[i]);
+    }
+    return finder.run(TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end(), 30);
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates reproducible one-day calendars for the benchmarks. Events start on a five minute grid
+ * and last between 15 minutes and two hours; attendees are drawn uniformly from a fixed
+ * population.
+ */
+final class SyntheticCalendar {
+  private static final int GRID_MINUTES = 5;
+  private static final int MIN_DURATION = 15;
+  private static final int MAX_DURATION = 120;
+
+  private final int people;
+  private final Random random;
+
+  /**
+   * Creates a generator.
+   *
+   * @param people The number of distinct attendees to draw from. Must be positive.
+   * @param seed The seed for the random number generator, so runs are comparable.
+   */
+  SyntheticCalendar(int people, long seed) {
+    if (people <= 0) {
+      throw new IllegalArgumentException("people must be positive");
+    }
+    this.people = people;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Returns {@code count} events with {@code attendeesPerEvent} distinct attendees each.
+   */
+  List<Event> events(int count, int attendeesPerEvent) {
+    List<Event> events = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      events.add(new Event("Event " + i, randomRange(), randomPeople(attendeesPerEvent)));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a request for {@code mandatory} mandatory and {@code optional} optional attendees, all
+   * distinct.
+   */
+  MeetingRequest request(int mandatory, int optional, long duration) {
+    List<String> attendees = new ArrayList<>(randomPeople(mandatory + optional));
+    MeetingRequest request = new MeetingRequest(attendees.subList(0, mandatory), duration);
+    for (String attendee : attendees.subList(mandatory, attendees.size())) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  /**
+   * Returns a random range inside the day, using the same shape as the generated events.
+   */
+  TimeRange randomRange() {
+    int duration = MIN_DURATION + random.nextInt(MAX_DURATION - MIN_DURATION + 1);
+    int latestStart = (TimeRange.WHOLE_DAY.duration() - duration) / GRID_MINUTES;
+    return TimeRange.fromStartDuration(GRID_MINUTES * random.nextInt(latestStart + 1), duration);
+  }
+
+  private Set<String> randomPeople(int count) {
+    int wanted = Math.min(count, people);
+    Set<String> chosen = new LinkedHashSet<>();
+    while (chosen.size() < wanted) {
+      chosen.add(person(random.nextInt(people)));
+    }
+    return chosen;
+  }
+
+  static String person(int i) {
+    return "Person " + i;
+  }
+}
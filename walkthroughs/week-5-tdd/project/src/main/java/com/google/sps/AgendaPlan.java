@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The slots an {@link AgendaPlanner} picked for a list of meeting requests.
+ */
+public final class AgendaPlan {
+  private final List<TimeRange> slots;
+  private final boolean exhaustive;
+
+  AgendaPlan(List<TimeRange> slots, boolean exhaustive) {
+    this.slots = Collections.unmodifiableList(new ArrayList<>(slots));
+    this.exhaustive = exhaustive;
+  }
+
+  /**
+   * Returns a read-only list with the slot picked for each request, in the order of the requests.
+   * The slot of a request that could not be placed is null.
+   */
+  public List<TimeRange> getSlots() {
+    return slots;
+  }
+
+  /**
+   * Returns the slot picked for the request at {@code index}, or null if it could not be placed.
+   */
+  public TimeRange getSlot(int index) {
+    return slots.get(index);
+  }
+
+  /**
+   * Returns how many of the requests were placed.
+   */
+  public int getPlacedCount() {
+    int placed = 0;
+    for (TimeRange slot : slots) {
+      if (slot != null) {
+        placed++;
+      }
+    }
+    return placed;
+  }
+
+  /**
+   * Returns true if every request was placed.
+   */
+  public boolean isComplete() {
+    return getPlacedCount() == slots.size();
+  }
+
+  /**
+   * Returns true if the planner tried every possibility before its time budget ran out, so that no
+   * plan places more requests than this one.
+   */
+  public boolean isExhaustive() {
+    return exhaustive;
+  }
+
+  @Override
+  public String toString() {
+    return slots.toString();
+  }
+}
@@ -0,0 +1,294 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places a whole agenda of related meetings at once, so that no two meetings that share an
+ * attendee overlap.
+ *
+ * <p>Each meeting can start at the beginning of any of its free slots, as found by
+ * {@link FindMeetingQuery#query(EventIndex, MeetingRequest, TimeRange)}, or every
+ * {@link #START_STEP} minutes after it. The planner searches these start times with backtracking:
+ * it always places next the meeting with the fewest start times left, tries its start times
+ * earliest first, and after placing it removes every start time that would now overlap from the
+ * meetings that share an attendee with it. A meeting whose start times all run out is left
+ * unplaced, and a branch is abandoned as soon as it cannot place more meetings than the best plan
+ * found so far.
+ *
+ * <p>The first plan is found without backtracking and is what placing the meetings greedily would
+ * give; the rest of the time budget is spent improving on it. When the budget runs out, the best
+ * plan found so far is returned. The planner only reads the index, and can be shared by threads.
+ */
+public final class AgendaPlanner {
+  /** Minutes between the start times tried inside a free slot. */
+  public static final int START_STEP = 15;
+
+  // How many search steps are taken between two looks at the clock.
+  private static final int STEPS_PER_CLOCK_CHECK = 1024;
+
+  // The start time of a meeting that could not be placed.
+  private static final int UNPLACED = Integer.MIN_VALUE;
+  // The start time of a meeting the search has not decided on yet.
+  private static final int UNDECIDED = Integer.MAX_VALUE;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+
+  /**
+   * Same as {@link #plan(EventIndex, List, TimeRange, long)}, for meetings on a single day.
+   */
+  public AgendaPlan plan(EventIndex index, List<MeetingRequest> requests, long timeBudgetMillis) {
+    return plan(index, requests, TimeRange.WHOLE_DAY, timeBudgetMillis);
+  }
+
+  /**
+   * Places as many of {@code requests} in {@code window} as possible, such that each is placed in
+   * one of its free slots and no two requests that share an attendee overlap.
+   *
+   * @param timeBudgetMillis How long to look for a better plan before returning the best one found
+   *     so far. Must not be negative.
+   */
+  public AgendaPlan plan(
+      EventIndex index, List<MeetingRequest> requests, TimeRange window, long timeBudgetMillis) {
+    if (timeBudgetMillis < 0) {
+      throw new IllegalArgumentException("timeBudgetMillis cannot be negative");
+    }
+
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis);
+    Search search = new Search(requests.size(), deadline);
+    for (int i = 0; i < requests.size(); i++) {
+      MeetingRequest request = requests.get(i);
+      search.durations[i] = (int) request.getDuration();
+      search.starts[i] = startTimes(query.query(index, request, window), request.getDuration());
+      search.removedAt[i] = new int[search.starts[i].length];
+      search.domainSizes[i] = search.starts[i].length;
+    }
+    search.neighbours = sharedAttendees(requests);
+    search.run(0);
+
+    List<TimeRange> slots = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      int start = search.bestStarts[i];
+      slots.add(start == UNPLACED
+          ? null
+          : TimeRange.fromStartDuration(start, search.durations[i]));
+    }
+    return new AgendaPlan(slots, !search.outOfTime);
+  }
+
+  private static int[] startTimes(Collection<TimeRange> slots, long duration) {
+    int count = 0;
+    for (TimeRange slot : slots) {
+      count += (int) ((slot.duration() - duration) / START_STEP) + 1;
+    }
+    int[] starts = new int[count];
+    int i = 0;
+    for (TimeRange slot : slots) {
+      for (long start = slot.start(); start + duration <= slot.end(); start += START_STEP) {
+        starts[i++] = (int) start;
+      }
+    }
+    return starts;
+  }
+
+  private static int[][] sharedAttendees(List<MeetingRequest> requests) {
+    List<Set<String>> attendees = new ArrayList<>(requests.size());
+    for (MeetingRequest request : requests) {
+      Set<String> all = new HashSet<>(request.getAttendees());
+      all.addAll(request.getOptionalAttendees());
+      attendees.add(all);
+    }
+    int[][] neighbours = new int[requests.size()][];
+    for (int i = 0; i < requests.size(); i++) {
+      int[] shared = new int[requests.size()];
+      int count = 0;
+      for (int j = 0; j < requests.size(); j++) {
+        if (j != i && !disjoint(attendees.get(i), attendees.get(j))) {
+          shared[count++] = j;
+        }
+      }
+      neighbours[i] = Arrays.copyOf(shared, count);
+    }
+    return neighbours;
+  }
+
+  private static boolean disjoint(Set<String> a, Set<String> b) {
+    for (String attendee : a) {
+      if (b.contains(attendee)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The state of one search. Start times are never copied: a start time that becomes impossible
+   * is marked with the depth that removed it, and unmarked when the search backs out of that
+   * depth.
+   */
+  private static final class Search {
+    private final int size;
+    private final long deadline;
+    private final int[] durations;
+    // The possible start times of each meeting, in ascending order.
+    private final int[][] starts;
+    // 0 if the start time is still possible, or else 1 + the depth that removed it.
+    private final int[][] removedAt;
+    private final int[] domainSizes;
+    private int[][] neighbours;
+
+    // The start time of each meeting decided on so far.
+    private final int[] current;
+    private int placed = 0;
+    private final int[] bestStarts;
+    private int bestPlaced = -1;
+
+    private int steps = 0;
+    private boolean outOfTime = false;
+
+    Search(int size, long deadline) {
+      this.size = size;
+      this.deadline = deadline;
+      this.durations = new int[size];
+      this.starts = new int[size][];
+      this.removedAt = new int[size][];
+      this.domainSizes = new int[size];
+      this.current = new int[size];
+      this.bestStarts = new int[size];
+      Arrays.fill(current, UNDECIDED);
+      Arrays.fill(bestStarts, UNPLACED);
+    }
+
+    /**
+     * Decides the remaining meetings, {@code depth} of which have been decided already.
+     */
+    void run(int depth) {
+      if (++steps % STEPS_PER_CLOCK_CHECK == 0 && System.nanoTime() - deadline > 0) {
+        outOfTime = true;
+      }
+      if (outOfTime) {
+        return;
+      }
+
+      int next = -1;
+      int placeable = 0;
+      for (int i = 0; i < size; i++) {
+        if (current[i] != UNDECIDED) {
+          continue;
+        }
+        if (domainSizes[i] > 0) {
+          placeable++;
+        }
+        if (next == -1 || rank(i) < rank(next)) {
+          next = i;
+        }
+      }
+      if (placed + placeable <= bestPlaced) {
+        // Even placing every meeting that still can be would not beat the best plan.
+        return;
+      }
+      if (next == -1) {
+        bestPlaced = placed;
+        System.arraycopy(current, 0, bestStarts, 0, size);
+        return;
+      }
+
+      int[] domain = starts[next];
+      for (int k = 0; k < domain.length && !outOfTime; k++) {
+        if (removedAt[next][k] != 0) {
+          continue;
+        }
+        current[next] = domain[k];
+        placed++;
+        removeOverlapping(next, domain[k], depth);
+        run(depth + 1);
+        restore(next, depth);
+        placed--;
+      }
+      current[next] = UNPLACED;
+      run(depth + 1);
+      current[next] = UNDECIDED;
+    }
+
+    /**
+     * Orders the undecided meetings: the one with the fewest start times left comes first, but a
+     * meeting with none left is decided last since there is nothing to try.
+     */
+    private long rank(int meeting) {
+      int domainSize = domainSizes[meeting];
+      return domainSize == 0 ? Long.MAX_VALUE : domainSize;
+    }
+
+    private void removeOverlapping(int meeting, int start, int depth) {
+      int end = start + durations[meeting];
+      for (int neighbour : neighbours[meeting]) {
+        if (current[neighbour] != UNDECIDED) {
+          continue;
+        }
+        int[] domain = starts[neighbour];
+        // A start time t overlaps exactly when start - duration < t < end.
+        int from = firstAbove(domain, start - Math.max(durations[neighbour], 1));
+        for (int k = from; k < domain.length && domain[k] < Math.max(end, start + 1); k++) {
+          if (removedAt[neighbour][k] == 0) {
+            removedAt[neighbour][k] = depth + 1;
+            domainSizes[neighbour]--;
+          }
+        }
+      }
+    }
+
+    private void restore(int meeting, int depth) {
+      int end = current[meeting] + durations[meeting];
+      for (int neighbour : neighbours[meeting]) {
+        if (current[neighbour] != UNDECIDED) {
+          continue;
+        }
+        int[] domain = starts[neighbour];
+        int from = firstAbove(domain, current[meeting] - Math.max(durations[neighbour], 1));
+        for (int k = from; k < domain.length && domain[k] < Math.max(end, current[meeting] + 1);
+            k++) {
+          if (removedAt[neighbour][k] == depth + 1) {
+            removedAt[neighbour][k] = 0;
+            domainSizes[neighbour]++;
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the index of the first element of {@code sorted} that is greater than {@code value}.
+     */
+    private static int firstAbove(int[] sorted, int value) {
+      int low = 0;
+      int high = sorted.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (sorted[middle] <= value) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+  }
+}
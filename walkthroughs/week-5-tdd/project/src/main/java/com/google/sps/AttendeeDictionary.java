@@ -0,0 +1,87 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns every attendee name a dense int id, in the order the names are first seen. Working with
+ * ids keeps names out of the hot loops: an event's attendees become a few ints and a group of
+ * people becomes a bitset indexed by id.
+ */
+final class AttendeeDictionary {
+  private final Map<String, Integer> ids = new HashMap<>();
+  private String[] names = new String[16];
+
+  /**
+   * Returns the id of {@code name}, assigning the next free id if the name is new.
+   */
+  int idOf(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    int newId = ids.size();
+    if (newId == names.length) {
+      names = Arrays.copyOf(names, newId * 2);
+    }
+    names[newId] = name;
+    ids.put(name, newId);
+    return newId;
+  }
+
+  /**
+   * Returns the id of {@code name}, or -1 if the name has never been seen.
+   */
+  int find(String name) {
+    Integer id = ids.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns the name with the given id.
+   */
+  String name(int id) {
+    if (id < 0 || id >= ids.size()) {
+      throw new IndexOutOfBoundsException("No attendee with id " + id);
+    }
+    return names[id];
+  }
+
+  /**
+   * Returns the number of names, which is also one more than the largest id.
+   */
+  int size() {
+    return ids.size();
+  }
+
+  /**
+   * Returns a bitset with the bits of the known {@code people} set. Names that were never seen
+   * have no id and are left out, since they cannot attend any stored event.
+   */
+  long[] toBitset(Collection<String> people) {
+    long[] bits = new long[(size() + 63) >>> 6];
+    for (String person : people) {
+      int id = find(person);
+      if (id >= 0) {
+        bits[id >>> 6] |= 1L << id;
+      }
+    }
+    return bits;
+  }
+}
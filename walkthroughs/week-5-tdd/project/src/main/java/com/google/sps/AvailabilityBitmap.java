@@ -0,0 +1,125 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * One bit per minute of a window, set when someone is busy during that minute. A whole day fits in
+ * 23 {@code long}s, so marking busy time and finding free runs both work a word at a time instead
+ * of an interval at a time.
+ */
+final class AvailabilityBitmap {
+  private static final int WORDS_PER_DAY = (TimeRange.MINUTES_PER_DAY + 63) / 64;
+
+  private long[] words = new long[WORDS_PER_DAY];
+  private int windowStart;
+  private int minutes;
+
+  /**
+   * Clears the bitmap and makes it cover {@code [windowStart, windowEnd)}.
+   */
+  void reset(int windowStart, int windowEnd) {
+    this.windowStart = windowStart;
+    this.minutes = Math.max(0, windowEnd - windowStart);
+    int wordCount = wordIndex(minutes + 63);
+    if (wordCount > words.length) {
+      words = new long[wordCount];
+    } else {
+      Arrays.fill(words, 0, wordCount, 0L);
+    }
+  }
+
+  /**
+   * Marks {@code [start, end)} as busy. The part outside the window is ignored.
+   */
+  void setBusy(int start, int end) {
+    int from = Math.max(start - windowStart, 0);
+    int to = Math.min(end - windowStart, minutes);
+    if (from >= to) {
+      return;
+    }
+
+    int firstWord = wordIndex(from);
+    int lastWord = wordIndex(to - 1);
+    // Shifts only use the low six bits, so these masks cover bits from..63 and 0..to-1.
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> -to;
+    if (firstWord == lastWord) {
+      words[firstWord] |= firstMask & lastMask;
+      return;
+    }
+    words[firstWord] |= firstMask;
+    for (int i = firstWord + 1; i < lastWord; i++) {
+      words[i] = -1L;
+    }
+    words[lastWord] |= lastMask;
+  }
+
+  /**
+   * Appends every free run of the window that is at least {@code duration} minutes long to
+   * {@code slots}, in ascending order.
+   */
+  void collectFreeRuns(long duration, IntervalBuffer slots) {
+    int time = 0;
+    while (time < minutes) {
+      int freeFrom = nextFree(time);
+      if (freeFrom >= minutes) {
+        return;
+      }
+      int freeUntil = nextBusy(freeFrom);
+      if (freeUntil - freeFrom >= duration) {
+        slots.add(windowStart + freeFrom, windowStart + freeUntil);
+      }
+      time = freeUntil;
+    }
+  }
+
+  /**
+   * Returns the first free minute at or after {@code from}, or the window length if there is none.
+   */
+  private int nextFree(int from) {
+    int i = wordIndex(from);
+    long word = ~words[i] & (-1L << from);
+    int wordCount = wordIndex(minutes + 63);
+    while (word == 0) {
+      if (++i == wordCount) {
+        return minutes;
+      }
+      word = ~words[i];
+    }
+    return Math.min(i * 64 + Long.numberOfTrailingZeros(word), minutes);
+  }
+
+  /**
+   * Returns the first busy minute at or after {@code from}, or the window length if there is none.
+   */
+  private int nextBusy(int from) {
+    int i = wordIndex(from);
+    long word = words[i] & (-1L << from);
+    int wordCount = wordIndex(minutes + 63);
+    while (word == 0) {
+      if (++i == wordCount) {
+        return minutes;
+      }
+      word = words[i];
+    }
+    return Math.min(i * 64 + Long.numberOfTrailingZeros(word), minutes);
+  }
+
+  private static int wordIndex(int minute) {
+    return minute >>> 6;
+  }
+}
@@ -0,0 +1,61 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Slot finder that ORs every busy interval into an {@link AvailabilityBitmap} and scans the bitmap
+ * for free runs. Nothing is sorted, so the cost grows linearly with the number of busy intervals
+ * instead of as O(n log n), which pays off for requests with many attendees. The mandatory
+ * intervals are scanned first; the optional ones are then ORed on top and the bitmap is scanned
+ * again.
+ */
+final class BitmapSweep implements SlotFinder {
+  private final IntervalBuffer mandatoryBusy = new IntervalBuffer();
+  private final IntervalBuffer optionalBusy = new IntervalBuffer();
+  private final AvailabilityBitmap bitmap = new AvailabilityBitmap();
+  private final SlotSweep.Result result = new SlotSweep.Result();
+
+  @Override
+  public void reset() {
+    mandatoryBusy.clear();
+    optionalBusy.clear();
+  }
+
+  @Override
+  public void addBusy(int start, int end, boolean optional) {
+    (optional ? optionalBusy : mandatoryBusy).add(start, end);
+  }
+
+  @Override
+  public SlotSweep.Result run(int windowStart, int windowEnd, long duration) {
+    IntervalBuffer allAttendees = result.allAttendees();
+    IntervalBuffer mandatoryOnly = result.mandatoryOnly();
+    allAttendees.clear();
+    mandatoryOnly.clear();
+
+    bitmap.reset(windowStart, windowEnd);
+    markBusy(mandatoryBusy);
+    bitmap.collectFreeRuns(duration, mandatoryOnly);
+    markBusy(optionalBusy);
+    bitmap.collectFreeRuns(duration, allAttendees);
+    return result;
+  }
+
+  private void markBusy(IntervalBuffer busy) {
+    for (int i = 0; i < busy.size(); i++) {
+      bitmap.setBusy(busy.start(i), busy.end(i));
+    }
+  }
+}
@@ -0,0 +1,30 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Receives the busy intervals of a query's mandatory and optional attendees.
+ */
+interface BusySink {
+  /**
+   * Adds a busy interval of a mandatory or an optional attendee. Intervals with no duration never
+   * block a meeting and are ignored.
+   */
+  void addBusy(int start, int end, boolean optional);
+
+  default void addBusy(TimeRange range, boolean optional) {
+    addBusy(range.start(), range.end(), optional);
+  }
+}
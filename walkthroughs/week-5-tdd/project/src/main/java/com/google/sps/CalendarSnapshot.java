@@ -0,0 +1,398 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.LongConsumer;
+
+/**
+ * An immutable view of a {@link SnapshotCalendar} at one point in time. A snapshot never changes,
+ * so a reader can run any number of queries against it without locks and without seeing half of
+ * a write. Events are kept by id in a {@link PersistentHashMap}, and each attendee's busy times in
+ * a small sorted array; a write makes a new snapshot that copies only the path to the event and
+ * the arrays of its attendees, and shares everything else with this one. Recurring events are
+ * fixed when the calendar is created, and are expanded by queries like in an {@link EventIndex}.
+ */
+public final class CalendarSnapshot {
+  private static final CalendarSnapshot EMPTY =
+      new CalendarSnapshot(PersistentHashMap.empty(), PersistentHashMap.empty(), 0, 1);
+  private static final RecurringEvent[] NO_RECURRING_EVENTS = new RecurringEvent[0];
+  private static final Timeline EMPTY_TIMELINE =
+      new Timeline(new int[0], new long[0], NO_RECURRING_EVENTS);
+
+  private final PersistentHashMap<Long, Event> events;
+  private final PersistentHashMap<String, Timeline> timelines;
+  private final long version;
+  private final long nextId;
+
+  private CalendarSnapshot(PersistentHashMap<Long, Event> events,
+      PersistentHashMap<String, Timeline> timelines, long version, long nextId) {
+    this.events = events;
+    this.timelines = timelines;
+    this.version = version;
+    this.nextId = nextId;
+  }
+
+  static CalendarSnapshot empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns a snapshot holding {@code events}, with ids counting up from 1 in iteration order, and
+   * {@code recurring}. Each attendee's busy times are sorted once, rather than inserted one event
+   * at a time.
+   */
+  static CalendarSnapshot of(Collection<Event> events, Collection<RecurringEvent> recurring) {
+    long[] ids = new long[events.size()];
+    for (int i = 0; i < ids.length; i++) {
+      ids[i] = i + 1L;
+    }
+    return of(new ArrayList<>(events), ids, recurring, ids.length + 1L);
+  }
+
+  /**
+   * Returns a snapshot holding the events in {@code byPosition}, the i-th with id {@code
+   * eventIds[i]}, and {@code recurring}. The next added event gets {@code nextId}.
+   */
+  static CalendarSnapshot of(
+      List<Event> byPosition, long[] eventIds, Collection<RecurringEvent> recurring, long nextId) {
+    PersistentHashMap<Long, Event> byId = PersistentHashMap.empty();
+    // The positions in byPosition of each attendee's events.
+    Map<String, List<Integer>> positions = new HashMap<>();
+    for (int i = 0; i < byPosition.size(); i++) {
+      Event event = byPosition.get(i);
+      byId = byId.with(eventIds[i], event);
+      for (String attendee : event.getAttendees()) {
+        positions.computeIfAbsent(attendee, key -> new ArrayList<>()).add(i);
+      }
+    }
+    Map<String, List<RecurringEvent>> recurringByAttendee = new HashMap<>();
+    for (RecurringEvent event : recurring) {
+      for (String attendee : event.getAttendees()) {
+        recurringByAttendee.computeIfAbsent(attendee, key -> new ArrayList<>()).add(event);
+        positions.computeIfAbsent(attendee, key -> new ArrayList<>());
+      }
+    }
+
+    PersistentHashMap<String, Timeline> timelines = PersistentHashMap.empty();
+    for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+      List<Integer> sorted = entry.getValue();
+      sorted.sort(Comparator.comparing((Integer i) -> byPosition.get(i).getWhen(),
+          TimeRange.ORDER_BY_START.thenComparing(TimeRange.ORDER_BY_END)));
+      int[] pairs = new int[2 * sorted.size()];
+      long[] ids = new long[sorted.size()];
+      for (int i = 0; i < sorted.size(); i++) {
+        TimeRange when = byPosition.get(sorted.get(i)).getWhen();
+        pairs[2 * i] = when.start();
+        pairs[2 * i + 1] = when.end();
+        ids[i] = eventIds[sorted.get(i)];
+      }
+      List<RecurringEvent> attendeeRecurring =
+          recurringByAttendee.getOrDefault(entry.getKey(), Collections.emptyList());
+      timelines = timelines.with(entry.getKey(),
+          new Timeline(pairs, ids, attendeeRecurring.toArray(NO_RECURRING_EVENTS)));
+    }
+    return new CalendarSnapshot(byId, timelines, 0, nextId);
+  }
+
+  /**
+   * Returns a number that grows with every write, so that readers can tell snapshots apart.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the number of events.
+   */
+  public int size() {
+    return events.size();
+  }
+
+  /**
+   * Returns the event with {@code id}, or null if there is none.
+   */
+  public Event getEvent(long id) {
+    return events.get(id);
+  }
+
+  /**
+   * Returns every event by id, in ascending order of id.
+   */
+  public SortedMap<Long, Event> getEvents() {
+    SortedMap<Long, Event> sorted = new TreeMap<>();
+    events.forEach(sorted::put);
+    return Collections.unmodifiableSortedMap(sorted);
+  }
+
+  /**
+   * Returns the times {@code attendee} is busy, merged into disjoint intervals and sorted by start
+   * time. The list is empty if the attendee has no events.
+   */
+  public List<TimeRange> getMergedBusyTimes(String attendee) {
+    Timeline timeline = timelines.get(attendee);
+    List<TimeRange> busyTimes = new ArrayList<>();
+    if (timeline != null) {
+      for (int i = 0; i < timeline.merged.length; i += 2) {
+        busyTimes.add(TimeRange.fromStartEnd(timeline.merged[i], timeline.merged[i + 1], false));
+      }
+    }
+    return busyTimes;
+  }
+
+  /**
+   * Adds the times {@code attendee} is busy during {@code window} to {@code sink}, merged and
+   * sorted by start time, like {@link EventIndex} does.
+   */
+  void addMergedBusyTimes(String attendee, TimeRange window, BusySink sink, boolean optional) {
+    Timeline timeline = timelines.get(attendee);
+    if (timeline == null) {
+      return;
+    }
+    int[] merged = timeline.merged;
+    // The first merged interval that ends inside the window.
+    int low = 0;
+    int high = merged.length / 2;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (merged[2 * middle + 1] <= window.start()) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    for (int i = 2 * low; i < merged.length && merged[i] < window.end(); i += 2) {
+      sink.addBusy(merged[i], merged[i + 1], optional);
+    }
+    for (RecurringEvent event : timeline.recurring) {
+      event.addOccurrences(window, sink, optional);
+    }
+  }
+
+  /**
+   * Returns the events that a meeting of {@code attendees} during {@code proposed} would clash
+   * with, sorted by start time, each with the attendees it keeps busy. Occurrences of recurring
+   * events count as events of their own. Only the events in the listed attendees' merged busy
+   * intervals that touch the proposed time are visited.
+   */
+  public List<Conflict> findConflicts(TimeRange proposed, Collection<String> attendees) {
+    // Event id to the proposed attendees who go to it.
+    Map<Long, List<String>> clashes = new TreeMap<>();
+    // Recurring events by identity, in the order they were first seen.
+    Map<RecurringEvent, List<String>> recurringClashes = new IdentityHashMap<>();
+    List<RecurringEvent> recurringSeen = new ArrayList<>();
+    for (String attendee : new LinkedHashSet<>(attendees)) {
+      Timeline timeline = timelines.get(attendee);
+      if (timeline == null) {
+        continue;
+      }
+      timeline.forEachNear(proposed, id -> {
+        TimeRange when = events.get(id).getWhen();
+        if (when.duration() > 0 && when.overlaps(proposed)) {
+          clashes.computeIfAbsent(id, key -> new ArrayList<>()).add(attendee);
+        }
+      });
+      for (RecurringEvent event : timeline.recurring) {
+        recurringClashes.computeIfAbsent(event, key -> {
+          recurringSeen.add(key);
+          return new ArrayList<>();
+        }).add(attendee);
+      }
+    }
+
+    List<Conflict> conflicts = new ArrayList<>(clashes.size());
+    for (Map.Entry<Long, List<String>> clash : clashes.entrySet()) {
+      conflicts.add(new Conflict(events.get(clash.getKey()), clash.getValue()));
+    }
+    for (RecurringEvent event : recurringSeen) {
+      for (TimeRange occurrence : event.getOccurrences(proposed)) {
+        conflicts.add(new Conflict(new Event(event.getTitle(), occurrence, event.getAttendees()),
+            recurringClashes.get(event)));
+      }
+    }
+    conflicts.sort(
+        (a, b) -> TimeRange.ORDER_BY_START.compare(a.getEvent().getWhen(), b.getEvent().getWhen()));
+    return conflicts;
+  }
+
+  /**
+   * Returns the id the next added event gets.
+   */
+  long nextId() {
+    return nextId;
+  }
+
+  /**
+   * Returns a snapshot in which {@code id} is {@code event}, replacing any event with that id.
+   */
+  CalendarSnapshot withEvent(long id, Event event) {
+    Event old = events.get(id);
+    PersistentHashMap<String, Timeline> newTimelines = timelines;
+    if (old != null) {
+      newTimelines = withoutBusyTime(newTimelines, id, old);
+    }
+    for (String attendee : event.getAttendees()) {
+      Timeline timeline = newTimelines.get(attendee);
+      newTimelines = newTimelines.with(attendee,
+          (timeline == null ? EMPTY_TIMELINE : timeline).with(event.getWhen(), id));
+    }
+    return new CalendarSnapshot(
+        events.with(id, event), newTimelines, version + 1, Math.max(nextId, id + 1));
+  }
+
+  /**
+   * Returns a snapshot without the event with {@code id}, or this snapshot if there is none.
+   */
+  CalendarSnapshot withoutEvent(long id) {
+    Event old = events.get(id);
+    if (old == null) {
+      return this;
+    }
+    return new CalendarSnapshot(
+        events.without(id), withoutBusyTime(timelines, id, old), version + 1, nextId);
+  }
+
+  private static PersistentHashMap<String, Timeline> withoutBusyTime(
+      PersistentHashMap<String, Timeline> timelines, long id, Event event) {
+    for (String attendee : event.getAttendees()) {
+      Timeline timeline = timelines.get(attendee).without(event.getWhen(), id);
+      timelines = timeline.busy.length == 0 && timeline.recurring.length == 0
+          ? timelines.without(attendee)
+          : timelines.with(attendee, timeline);
+    }
+    return timelines;
+  }
+
+  /**
+   * One attendee's busy times, as flat {start, end} pairs: every event's time sorted by start and
+   * then end, with the id of the event, and the union of the non-empty ones as disjoint,
+   * non-touching intervals. The attendee's recurring events are kept whole.
+   */
+  private static final class Timeline {
+    private final int[] busy;
+    // The id of the event behind each pair in busy.
+    private final long[] ids;
+    private final int[] merged;
+    private final RecurringEvent[] recurring;
+
+    Timeline(int[] busy, long[] ids, RecurringEvent[] recurring) {
+      this.busy = busy;
+      this.ids = ids;
+      this.merged = merge(busy);
+      this.recurring = recurring;
+    }
+
+    Timeline with(TimeRange when, long id) {
+      int at = position(when.start(), when.end());
+      int[] copy = new int[busy.length + 2];
+      System.arraycopy(busy, 0, copy, 0, at);
+      copy[at] = when.start();
+      copy[at + 1] = when.end();
+      System.arraycopy(busy, at, copy, at + 2, busy.length - at);
+      long[] idsCopy = new long[ids.length + 1];
+      System.arraycopy(ids, 0, idsCopy, 0, at / 2);
+      idsCopy[at / 2] = id;
+      System.arraycopy(ids, at / 2, idsCopy, at / 2 + 1, ids.length - at / 2);
+      return new Timeline(copy, idsCopy, recurring);
+    }
+
+    Timeline without(TimeRange when, long id) {
+      int at = position(when.start(), when.end());
+      // Other events may have the same time.
+      while (ids[at / 2] != id) {
+        at += 2;
+      }
+      int[] copy = new int[busy.length - 2];
+      System.arraycopy(busy, 0, copy, 0, at);
+      System.arraycopy(busy, at + 2, copy, at, busy.length - at - 2);
+      long[] idsCopy = new long[ids.length - 1];
+      System.arraycopy(ids, 0, idsCopy, 0, at / 2);
+      System.arraycopy(ids, at / 2 + 1, idsCopy, at / 2, ids.length - at / 2 - 1);
+      return new Timeline(copy, idsCopy, recurring);
+    }
+
+    /**
+     * Calls {@code action} with the id of every event that might overlap {@code window}: those
+     * that start from the first merged interval that does not end before the window, up to the
+     * window's end.
+     */
+    void forEachNear(TimeRange window, LongConsumer action) {
+      int low = 0;
+      int high = merged.length / 2;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (merged[2 * middle + 1] < window.start()) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      if (2 * low == merged.length) {
+        return;
+      }
+      for (int i = position(merged[2 * low], Integer.MIN_VALUE);
+          i < busy.length && busy[i] <= window.end(); i += 2) {
+        action.accept(ids[i / 2]);
+      }
+    }
+
+    /**
+     * Returns the index in {@code busy} of the first pair that is not before {@code (start, end)}.
+     */
+    private int position(int start, int end) {
+      int low = 0;
+      int high = busy.length / 2;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        int middleStart = busy[2 * middle];
+        if (middleStart < start || (middleStart == start && busy[2 * middle + 1] < end)) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return 2 * low;
+    }
+
+    private static int[] merge(int[] busy) {
+      int[] merged = new int[busy.length];
+      int size = 0;
+      for (int i = 0; i < busy.length; i += 2) {
+        if (busy[i + 1] <= busy[i]) {
+          // Events that take no time keep no one busy.
+          continue;
+        }
+        if (size > 0 && busy[i] <= merged[size - 1]) {
+          merged[size - 1] = Math.max(merged[size - 1], busy[i + 1]);
+        } else {
+          merged[size++] = busy[i];
+          merged[size++] = busy[i + 1];
+        }
+      }
+      return Arrays.copyOf(merged, size);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An existing event that a proposed meeting would clash with, and which of the proposed
+ * attendees it keeps busy.
+ */
+public final class Conflict {
+  private final Event event;
+  private final List<String> attendees;
+
+  /**
+   * Creates a new conflict.
+   *
+   * @param event The existing event. Must be non-null.
+   * @param attendees The proposed attendees who go to the event. Must be non-null.
+   */
+  public Conflict(Event event, List<String> attendees) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null");
+    }
+
+    this.event = event;
+    this.attendees = attendees;
+  }
+
+  /**
+   * Returns the existing event.
+   */
+  public Event getEvent() {
+    return event;
+  }
+
+  /**
+   * Returns a read-only list of the proposed attendees who go to the event.
+   */
+  public List<String> getAttendees() {
+    return Collections.unmodifiableList(attendees);
+  }
+}
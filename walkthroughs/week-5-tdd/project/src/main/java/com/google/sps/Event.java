@@ -27,6 +27,9 @@ public final class Event {
   private final String title;
   private final TimeRange when;
   private final Set<String> attendees = new HashSet<>();
+  // The same attendees as an array, which can be scanned without allocating an iterator. It is
+  // transient so that it does not show up in the JSON sent to the client.
+  private final transient String[] attendeeArray;
 
   /**
    * Creates a new event.
@@ -51,6 +54,7 @@ public final class Event {
     this.title = title;
     this.when = when;
     this.attendees.addAll(attendees);
+    this.attendeeArray = this.attendees.toArray(new String[0]);
   }
 
   /**
@@ -76,6 +80,19 @@ public final class Event {
     return Collections.unmodifiableSet(attendees);
   }
 
+  /**
+   * Returns true if at least one of {@code people} attends this event. Unlike going through
+   * {@code getAttendees()}, this does not allocate, which matters on the scheduler's hot path.
+   */
+  boolean isAttendedByAny(Set<String> people) {
+    for (String attendee : attendeeArray) {
+      if (people.contains(attendee)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public int hashCode() {
     // For the hash code, just use the title. Most events "should" have different names and will
@@ -0,0 +1,320 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from each attendee to the times they are busy. Looking up an attendee only
+ * touches that attendee's own events.
+ *
+ * <p>Besides the raw busy times, the index keeps every attendee's busy time merged into disjoint
+ * intervals; the gaps between them are the attendee's free time. Adding or removing an event only
+ * updates the merged intervals of that event's attendees, in O(log n) plus the number of intervals
+ * that get merged or split, so the scheduler never has to rebuild free time from scratch.
+ * Recurring events are kept whole per attendee, and only their occurrences inside a query's
+ * window are ever computed.
+ *
+ * <p>The index is not safe for concurrent modification. Reading from several threads is fine as
+ * long as nothing is added or removed at the same time.
+ */
+public final class EventIndex {
+  // Orders busy times by start, then by end, so that equal ranges sit next to each other.
+  private static final Comparator<TimeRange> ORDER_BY_START_THEN_END =
+      TimeRange.ORDER_BY_START.thenComparing(TimeRange.ORDER_BY_END);
+
+  private final Map<String, AttendeeCalendar> calendars = new HashMap<>();
+
+  /**
+   * Creates an empty index.
+   */
+  public EventIndex() {}
+
+  /**
+   * Creates an index over {@code events}.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public EventIndex(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    for (Event event : events) {
+      add(event);
+    }
+  }
+
+  /**
+   * Adds an event, making its attendees busy during {@code event.getWhen()}.
+   */
+  public void add(Event event) {
+    add(event.getWhen(), event.getAttendees());
+  }
+
+  /**
+   * Makes {@code attendees} busy during {@code when}, for callers that do not keep {@link Event}
+   * objects around.
+   */
+  void add(TimeRange when, Collection<String> attendees) {
+    for (String attendee : attendees) {
+      calendars.computeIfAbsent(attendee, key -> new AttendeeCalendar()).add(when);
+    }
+  }
+
+  /**
+   * Adds a recurring event, making its attendees busy during each of its occurrences. The
+   * occurrences are not expanded; queries compute the ones inside their window.
+   */
+  public void add(RecurringEvent event) {
+    for (String attendee : event.getAttendees()) {
+      calendars.computeIfAbsent(attendee, key -> new AttendeeCalendar()).recurring.add(event);
+    }
+  }
+
+  /**
+   * Removes a recurring event that was added before. Returns false, and changes nothing, if the
+   * index does not know about the event.
+   */
+  public boolean remove(RecurringEvent event) {
+    for (String attendee : event.getAttendees()) {
+      AttendeeCalendar calendar = calendars.get(attendee);
+      if (calendar == null || !calendar.recurring.contains(event)) {
+        return false;
+      }
+    }
+    for (String attendee : event.getAttendees()) {
+      AttendeeCalendar calendar = calendars.get(attendee);
+      calendar.recurring.remove(event);
+      if (calendar.isEmpty()) {
+        calendars.remove(attendee);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Removes one occurrence of an event that was added before. Returns false, and changes nothing,
+   * if the index does not know about the event.
+   */
+  public boolean remove(Event event) {
+    for (String attendee : event.getAttendees()) {
+      AttendeeCalendar calendar = calendars.get(attendee);
+      if (calendar == null || !calendar.isBusy(event.getWhen())) {
+        return false;
+      }
+    }
+    for (String attendee : event.getAttendees()) {
+      AttendeeCalendar calendar = calendars.get(attendee);
+      calendar.remove(event.getWhen());
+      if (calendar.isEmpty()) {
+        calendars.remove(attendee);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a read-only list of the times {@code attendee} is busy, sorted by start time in
+   * ascending order. The list is empty if the attendee has no events.
+   */
+  public List<TimeRange> getBusyTimes(String attendee) {
+    AttendeeCalendar calendar = calendars.get(attendee);
+    if (calendar == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(calendar.busyTimes());
+  }
+
+  /**
+   * Returns a read-only view of the times {@code attendee} is busy during {@code window}, merged
+   * into disjoint intervals and sorted by start time in ascending order. Overlapping and touching
+   * events become one interval, which is not clipped to the window. Recurring events are not
+   * included.
+   */
+  public Collection<TimeRange> getMergedBusyTimes(String attendee, TimeRange window) {
+    AttendeeCalendar calendar = calendars.get(attendee);
+    if (calendar == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableCollection(calendar.mergedBusyTimes(window));
+  }
+
+  /**
+   * Adds the times {@code attendee} is busy during {@code window} to {@code sink}, merged into
+   * disjoint intervals and sorted by start time, tagged as {@code optional}. The intervals come
+   * from a compact array that is cached per attendee until their calendar changes, so once it is
+   * built this allocates nothing, and the mandatory and optional passes of every query share it.
+   * The occurrences of the attendee's recurring events in the window follow, unmerged.
+   */
+  void addMergedBusyTimes(String attendee, TimeRange window, BusySink sink, boolean optional) {
+    AttendeeCalendar calendar = calendars.get(attendee);
+    if (calendar == null) {
+      return;
+    }
+    int[] merged = calendar.mergedArray();
+    int windowStart = window.start();
+    int windowEnd = window.end();
+    // Merged intervals are disjoint, so their ends are sorted as well: search for the first one
+    // that ends inside the window.
+    int low = 0;
+    int high = merged.length / 2;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (merged[2 * middle + 1] <= windowStart) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    for (int i = 2 * low; i < merged.length && merged[i] < windowEnd; i += 2) {
+      sink.addBusy(merged[i], merged[i + 1], optional);
+    }
+    for (RecurringEvent event : calendar.recurring) {
+      event.addOccurrences(window, sink, optional);
+    }
+  }
+
+  /**
+   * One attendee's busy times, both as they were added and merged into disjoint intervals.
+   */
+  private static final class AttendeeCalendar {
+    // Every busy time that was added, with the number of times it was added.
+    private final NavigableMap<TimeRange, Integer> busyCounts =
+        new TreeMap<>(ORDER_BY_START_THEN_END);
+    // The union of the busy times as disjoint, non-touching intervals, keyed by start time.
+    private final NavigableMap<Integer, TimeRange> merged = new TreeMap<>();
+    // The merged intervals flattened to {start0, end0, start1, end1, ...}. Built on the first read
+    // after a change; racing readers may each build it, but they build the same array.
+    private volatile int[] mergedArray;
+    // Recurring events are kept whole, since their occurrences may never end.
+    private final List<RecurringEvent> recurring = new ArrayList<>();
+
+    boolean isEmpty() {
+      return busyCounts.isEmpty() && recurring.isEmpty();
+    }
+
+    boolean isBusy(TimeRange range) {
+      return busyCounts.containsKey(range);
+    }
+
+    void add(TimeRange range) {
+      busyCounts.merge(range, 1, Integer::sum);
+      if (range.duration() <= 0) {
+        return;
+      }
+
+      // Swallow every merged interval that overlaps or touches the new one.
+      int start = range.start();
+      int end = range.end();
+      Map.Entry<Integer, TimeRange> before = merged.floorEntry(start);
+      if (before != null && before.getValue().end() >= start) {
+        start = before.getKey();
+      }
+      Iterator<TimeRange> swallowed = merged.subMap(start, true, end, true).values().iterator();
+      while (swallowed.hasNext()) {
+        end = Math.max(end, swallowed.next().end());
+        swallowed.remove();
+      }
+      merged.put(start, TimeRange.fromStartEnd(start, end, false));
+      mergedArray = null;
+    }
+
+    void remove(TimeRange range) {
+      int count = busyCounts.get(range);
+      if (count > 1) {
+        busyCounts.put(range, count - 1);
+        return;
+      }
+      busyCounts.remove(range);
+      if (range.duration() <= 0) {
+        return;
+      }
+
+      // Only the merged interval that contained the range can change. Rebuild it from the busy
+      // times that start inside it, which may now leave gaps.
+      Map.Entry<Integer, TimeRange> container = merged.floorEntry(range.start());
+      TimeRange component = container.getValue();
+      merged.remove(container.getKey());
+      // An empty range sorts before every busy time with a positive duration and the same start.
+      // Building it from explicit bounds keeps it from overflowing at extreme start times.
+      TimeRange from = TimeRange.fromStartEnd(component.start(), component.start(), false);
+      int start = 0;
+      int end = Integer.MIN_VALUE;
+      for (TimeRange busy : busyCounts.tailMap(from, true).keySet()) {
+        if (busy.start() >= component.end()) {
+          break;
+        }
+        if (busy.duration() <= 0) {
+          continue;
+        }
+        if (busy.start() > end) {
+          if (end != Integer.MIN_VALUE) {
+            merged.put(start, TimeRange.fromStartEnd(start, end, false));
+          }
+          start = busy.start();
+        }
+        end = Math.max(end, busy.end());
+      }
+      if (end != Integer.MIN_VALUE) {
+        merged.put(start, TimeRange.fromStartEnd(start, end, false));
+      }
+      mergedArray = null;
+    }
+
+    int[] mergedArray() {
+      int[] array = mergedArray;
+      if (array == null) {
+        array = new int[2 * merged.size()];
+        int i = 0;
+        for (TimeRange busy : merged.values()) {
+          array[i++] = busy.start();
+          array[i++] = busy.end();
+        }
+        mergedArray = array;
+      }
+      return array;
+    }
+
+    List<TimeRange> busyTimes() {
+      List<TimeRange> busyTimes = new ArrayList<>();
+      for (Map.Entry<TimeRange, Integer> entry : busyCounts.entrySet()) {
+        for (int i = 0; i < entry.getValue(); i++) {
+          busyTimes.add(entry.getKey());
+        }
+      }
+      return busyTimes;
+    }
+
+    Collection<TimeRange> mergedBusyTimes(TimeRange window) {
+      // Merged intervals are disjoint, so at most one that starts before the window reaches into
+      // it.
+      Integer from = merged.floorKey(window.start());
+      if (from == null || merged.get(from).end() <= window.start()) {
+        from = window.start();
+      }
+      return merged.subMap(from, true, window.end(), false).values();
+    }
+  }
+}
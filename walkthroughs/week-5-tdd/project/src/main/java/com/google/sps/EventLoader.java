@@ -0,0 +1,219 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads events into an {@link EventStore} straight from a JSON stream. The input is the array that
+ * {@code /get-events} serves:
+ *
+ * <pre>
+ * [{"title": "Standup", "when": {"start": 540, "duration": 15}, "attendees": ["Ava", "Liam"]}]
+ * </pre>
+ *
+ * <p>The {@code when} of an event can name the time zone it is given in, as in
+ * {@code {"start": 540, "duration": 30, "zone": "America/New_York"}}. Its start is then converted
+ * to the UTC timeline of {@link ZoneOffsets} as it is loaded, so the store only ever holds UTC
+ * minutes. Times without a zone are already in UTC.
+ *
+ * <p>An event with a {@code recurrence} repeats every few days and is added to the store as a
+ * {@link RecurringEvent}, as in
+ * {@code "recurrence": {"every_days": 7, "until": 525600, "except": [10620]}}. {@code until} is a
+ * UTC minute and is optional; {@code except} lists the wall-clock start times of occurrences that
+ * are skipped.
+ *
+ * <p>Each event is added to the store as soon as it has been read, so no tree of the whole
+ * document is ever built and memory only grows with the store itself. Unknown fields are skipped.
+ * If the input turns out to be malformed, the events before the error have already been added.
+ */
+public final class EventLoader {
+  /**
+   * Returns a new store holding the events in {@code file}.
+   */
+  public EventStore load(Path file) throws IOException {
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return load(reader);
+    }
+  }
+
+  /**
+   * Returns a new store holding the events read from {@code reader}. The reader is not closed.
+   */
+  public EventStore load(Reader reader) throws IOException {
+    EventStore store = new EventStore();
+    loadInto(reader, store);
+    return store;
+  }
+
+  /**
+   * Adds the events read from {@code reader} to {@code store}, and returns how many there were.
+   * The reader is not closed.
+   *
+   * @throws JsonSyntaxException if the input is not a well-formed array of events
+   */
+  public int loadInto(Reader reader, EventStore store) throws IOException {
+    JsonReader json = new JsonReader(reader);
+    int count = 0;
+    try {
+      json.beginArray();
+      while (json.hasNext()) {
+        readEvent(json, store, count);
+        count++;
+      }
+      json.endArray();
+    } catch (EOFException | MalformedJsonException | IllegalStateException
+        | NumberFormatException e) {
+      // JsonReader reports truncated or broken JSON and values of the wrong type in these
+      // different ways.
+      throw new JsonSyntaxException(e);
+    }
+    return count;
+  }
+
+  private static void readEvent(JsonReader json, EventStore store, int position)
+      throws IOException {
+    String title = null;
+    When when = null;
+    Recurrence recurrence = null;
+    Set<String> attendees = new LinkedHashSet<>();
+    json.beginObject();
+    while (json.hasNext()) {
+      switch (json.nextName()) {
+        case "title":
+          title = json.nextString();
+          break;
+        case "when":
+          when = readWhen(json);
+          break;
+        case "recurrence":
+          recurrence = readRecurrence(json);
+          break;
+        case "attendees":
+          json.beginArray();
+          while (json.hasNext()) {
+            attendees.add(json.nextString());
+          }
+          json.endArray();
+          break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+
+    if (title == null || when == null) {
+      throw new JsonSyntaxException(
+          "Event " + position + " needs a title and a time, at " + json.getPath());
+    }
+    try {
+      if (recurrence == null) {
+        store.add(title, ZoneOffsets.of(when.zone).toUtc(when.local), attendees);
+      } else {
+        store.addRecurring(new RecurringEvent(title, when.local, recurrence.everyDays, attendees,
+            when.zone, recurrence.until, recurrence.exceptions));
+      }
+    } catch (DateTimeException e) {
+      throw new JsonSyntaxException(
+          "Event " + position + " has an unknown time zone " + when.zone + ", at "
+              + json.getPath(), e);
+    } catch (IllegalArgumentException e) {
+      throw new JsonSyntaxException(
+          "Event " + position + " is invalid: " + e.getMessage() + ", at " + json.getPath(), e);
+    }
+  }
+
+  private static When readWhen(JsonReader json) throws IOException {
+    When when = new When();
+    int start = 0;
+    int duration = 0;
+    json.beginObject();
+    while (json.hasNext()) {
+      switch (json.nextName()) {
+        case "start":
+          start = json.nextInt();
+          break;
+        case "duration":
+          duration = json.nextInt();
+          break;
+        case "zone":
+          when.zone = json.nextString();
+          break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+    when.local = TimeRange.fromStartDuration(start, duration);
+    return when;
+  }
+
+  private static Recurrence readRecurrence(JsonReader json) throws IOException {
+    Recurrence recurrence = new Recurrence();
+    json.beginObject();
+    while (json.hasNext()) {
+      switch (json.nextName()) {
+        case "every_days":
+          recurrence.everyDays = json.nextInt();
+          break;
+        case "until":
+          recurrence.until = json.nextInt();
+          break;
+        case "except":
+          json.beginArray();
+          while (json.hasNext()) {
+            recurrence.exceptions.add(json.nextInt());
+          }
+          json.endArray();
+          break;
+        default:
+          json.skipValue();
+      }
+    }
+    json.endObject();
+    return recurrence;
+  }
+
+  /**
+   * The {@code when} of an event, in wall-clock minutes of its zone.
+   */
+  private static final class When {
+    private TimeRange local;
+    // Null for UTC.
+    private String zone;
+  }
+
+  /**
+   * The {@code recurrence} of an event.
+   */
+  private static final class Recurrence {
+    private int everyDays = 0;
+    private int until = Integer.MAX_VALUE;
+    private final List<Integer> exceptions = new ArrayList<>();
+  }
+}
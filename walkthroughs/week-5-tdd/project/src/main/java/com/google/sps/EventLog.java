@@ -0,0 +1,585 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log that makes the changes to a {@link SnapshotCalendar} durable. Every add, update
+ * and remove goes through the log: it is appended to the log file, and only once the file has been
+ * forced to disk is it applied to the calendar, so queries never see a change that could be lost.
+ * When the log is opened, the changes already in the file are replayed into the calendar, so a
+ * restarted server picks up where it stopped.
+ *
+ * <p>Forcing the file to disk is far slower than anything else a write does, so writes are
+ * committed in groups. A write queues its record and then waits to flush. Only one thread flushes
+ * at a time; it takes every record queued so far, writes them with a single call, forces the file
+ * once, and then applies their changes to the calendar in the order they were queued. Writes that
+ * queue while a flush is running are picked up together by the next one, so the more threads
+ * write at once, the more records share each force. Since queued changes are not in the calendar
+ * yet, the log keeps its own set of event ids to check updates and removals against, and hands
+ * out the ids of new events itself.
+ *
+ * <p>Each record is its length, a CRC-32 of its bytes, and the bytes: the kind of change, the
+ * event id, and for adds and updates the event. A record that was only partly written when the
+ * server stopped fails its check; it and anything after it are cut off when the log is opened.
+ * A bad record followed by an intact one is damage rather than a torn write, so the log then
+ * refuses to open and leaves the file as it is.
+ *
+ * <p>So that the file does not grow forever and a restart does not replay every change ever made,
+ * the log is checkpointed once it holds {@value #CHECKPOINT_INTERVAL} records, and when it is
+ * opened with that many: every event in the calendar is written to a checkpoint file next to the
+ * log, and the log is emptied. Opening the log restores the checkpoint, which replaces the events
+ * the calendar starts with, and replays the log on top. Without a checkpoint, the log is replayed
+ * on top of the events the calendar starts with, so those must be the same every time the log is
+ * opened. Recurring events are never logged, and always come from the calendar.
+ *
+ * <p>If writing to the file fails, the changes that were being flushed are not applied to the
+ * calendar, and every later write fails too. Some of them may have reached the file anyway, so the
+ * calendar should then be rebuilt by opening the log again.
+ */
+public final class EventLog implements Closeable {
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+  // No record is anywhere near this long, so a larger length means the file is damaged.
+  private static final int MAX_RECORD_BYTES = 16 << 20;
+  // The kind of change and the event id; a shorter record is damaged.
+  private static final int MIN_RECORD_BYTES = 1 + 8;
+  // "CKP" and the format version.
+  private static final int CHECKPOINT_MAGIC = 0x434B5001;
+  // Records in the file before it is checkpointed, so that reopening it never replays more.
+  private static final int CHECKPOINT_INTERVAL = 100_000;
+
+  private final SnapshotCalendar calendar;
+  private final FileChannel channel;
+  private final Path checkpointFile;
+  private final int checkpointInterval;
+  private final int replayed;
+
+  // Records queued but not yet written, the changes they make, and the number of the last one.
+  // Guarded by this.
+  private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private List<Change> pendingChanges = new ArrayList<>();
+  private long lastQueued = 0;
+  private boolean closed = false;
+  // The ids of the events once every queued change is applied, and the id of the next new event.
+  // Guarded by this.
+  private final Set<Long> ids;
+  private long nextId;
+
+  // Only one thread flushes at a time.
+  private final Object flushLock = new Object();
+  // The number of the last record known to be on disk.
+  private volatile long durable = 0;
+  // Set while holding flushLock.
+  private volatile IOException failure;
+  // The number of records in the file, which the next checkpoint drops. Guarded by flushLock.
+  private int sinceCheckpoint;
+
+  private EventLog(SnapshotCalendar calendar, FileChannel channel, Path checkpointFile,
+      int checkpointInterval, int replayed) {
+    this.calendar = calendar;
+    this.channel = channel;
+    this.checkpointFile = checkpointFile;
+    this.checkpointInterval = checkpointInterval;
+    this.replayed = replayed;
+    this.sinceCheckpoint = replayed;
+    CalendarSnapshot snapshot = calendar.snapshot();
+    this.ids = new HashSet<>(snapshot.getEvents().keySet());
+    this.nextId = snapshot.nextId();
+  }
+
+  /**
+   * Restores the checkpoint next to {@code file} into {@code calendar} if there is one, replays the
+   * changes in {@code file} on top, and opens the file for new ones. The file is created if it does
+   * not exist.
+   */
+  public static EventLog open(Path file, SnapshotCalendar calendar) throws IOException {
+    return open(file, calendar, CHECKPOINT_INTERVAL);
+  }
+
+  /**
+   * Same as {@link #open(Path, SnapshotCalendar)}, but checkpoints once the file holds {@code
+   * checkpointInterval} records.
+   */
+  static EventLog open(Path file, SnapshotCalendar calendar, int checkpointInterval)
+      throws IOException {
+    Path checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+    if (Files.exists(checkpointFile)) {
+      restoreCheckpoint(checkpointFile, calendar);
+    }
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    EventLog log;
+    try {
+      long validBytes = 0;
+      int replayed = 0;
+      DataInputStream in = new DataInputStream(
+          new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+      byte[] record;
+      while ((record = readRecord(in, channel.size() - validBytes)) != null) {
+        apply(record, calendar);
+        validBytes += 8 + record.length;
+        replayed++;
+      }
+      if (validBytes < channel.size() && hasIntactRecord(channel, validBytes + 1)) {
+        // A record that was only partly written can only be the last thing in the file. This one
+        // was damaged later, and cutting it off would lose the changes after it.
+        throw new IOException("The event log " + file + " is damaged at byte " + validBytes
+            + ", and intact changes follow it");
+      }
+      // Cut off a record that was only partly written.
+      channel.truncate(validBytes);
+      channel.position(validBytes);
+      log = new EventLog(calendar, channel, checkpointFile, checkpointInterval, replayed);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    if (log.getReplayedCount() >= checkpointInterval) {
+      log.checkpoint();
+    }
+    return log;
+  }
+
+  /**
+   * Returns how many changes were replayed when the log was opened.
+   */
+  public int getReplayedCount() {
+    return replayed;
+  }
+
+  /**
+   * Adds an event, and returns its id once the change is on disk.
+   *
+   * @throws IllegalArgumentException if the event is null, has a null attendee, or has a title or
+   *     attendee too long to log
+   */
+  public long add(Event event) throws IOException {
+    byte[] encoded = encodeEvent(event);
+    long id;
+    long sequence;
+    synchronized (this) {
+      checkOpen();
+      id = nextId++;
+      ids.add(id);
+      sequence = enqueue(PUT, id, event, encoded);
+    }
+    awaitDurable(sequence);
+    return id;
+  }
+
+  /**
+   * Replaces the event with {@code id}, and returns once the change is on disk. Returns false, and
+   * changes nothing, if there is no such event.
+   */
+  public boolean update(long id, Event event) throws IOException {
+    byte[] encoded = encodeEvent(event);
+    long sequence;
+    synchronized (this) {
+      checkOpen();
+      if (!ids.contains(id)) {
+        return false;
+      }
+      sequence = enqueue(PUT, id, event, encoded);
+    }
+    awaitDurable(sequence);
+    return true;
+  }
+
+  /**
+   * Removes the event with {@code id}, and returns once the change is on disk. Returns false, and
+   * changes nothing, if there is no such event.
+   */
+  public boolean remove(long id) throws IOException {
+    long sequence;
+    synchronized (this) {
+      checkOpen();
+      if (!ids.remove(id)) {
+        return false;
+      }
+      sequence = enqueue(DELETE, id, null, new byte[0]);
+    }
+    awaitDurable(sequence);
+    return true;
+  }
+
+  /**
+   * Closes the file. Every change made before has already been forced to disk.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      closed = true;
+    }
+    synchronized (flushLock) {
+      channel.close();
+    }
+  }
+
+  /**
+   * Writes every event in the calendar to the checkpoint file and empties the log, so that opening
+   * the log again only replays the changes made after this. Writes wait until it is done.
+   */
+  public void checkpoint() throws IOException {
+    synchronized (flushLock) {
+      synchronized (this) {
+        checkOpen();
+        checkpointLocked();
+      }
+    }
+  }
+
+  /**
+   * Checkpoints while holding both flushLock and this object's lock, so nothing is queued or
+   * flushed meanwhile.
+   */
+  private void checkpointLocked() throws IOException {
+    // Make every queued change durable and part of the calendar first.
+    flush();
+    writeCheckpoint(checkpointFile, calendar.snapshot());
+    try {
+      // The checkpoint holds everything in the log now. If the server stops before the log is
+      // emptied, its changes are simply replayed onto the checkpoint again, which changes nothing.
+      channel.truncate(0);
+      channel.force(true);
+    } catch (IOException e) {
+      failure = e;
+      throw e;
+    }
+    sinceCheckpoint = 0;
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IllegalStateException("The event log is closed");
+    }
+    if (failure != null) {
+      throw new IOException("An earlier write to the event log failed", failure);
+    }
+  }
+
+  /**
+   * Queues the record of a change to the event with {@code id} and returns its number. {@code
+   * event} is null for a removal. Must be called while holding this object's lock, in the same
+   * block that checked the change against {@link #ids}, so that records are queued in the order
+   * the changes were checked.
+   */
+  private long enqueue(byte kind, long id, Event event, byte[] encodedEvent) {
+    byte[] record = encode(kind, id, encodedEvent);
+    pending.write(record, 0, record.length);
+    pendingChanges.add(new Change(id, event));
+    return ++lastQueued;
+  }
+
+  /**
+   * Returns once the record numbered {@code sequence} is on disk, flushing it and everything queued
+   * with it if no other thread has yet.
+   */
+  private void awaitDurable(long sequence) throws IOException {
+    if (durable >= sequence) {
+      return;
+    }
+    synchronized (flushLock) {
+      if (durable >= sequence) {
+        // Another thread flushed this record while this one was waiting.
+        return;
+      }
+      if (failure != null) {
+        throw new IOException("An earlier write to the event log failed", failure);
+      }
+      flush();
+      if (sinceCheckpoint >= checkpointInterval) {
+        synchronized (this) {
+          try {
+            checkpointLocked();
+          } catch (IOException e) {
+            // The change this thread waited for is durable either way. If the log could not be
+            // emptied, later writes fail; otherwise the checkpoint is tried again after the next
+            // flush.
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes every queued record with a single call, forces the file, and then applies the changes
+   * to the calendar. Must be called while holding flushLock.
+   */
+  private void flush() throws IOException {
+    ByteArrayOutputStream batch;
+    List<Change> changes;
+    long batchEnd;
+    synchronized (this) {
+      batch = pending;
+      changes = pendingChanges;
+      batchEnd = lastQueued;
+      pending = new ByteArrayOutputStream();
+      pendingChanges = new ArrayList<>();
+    }
+    try {
+      ByteBuffer bytes = ByteBuffer.wrap(batch.toByteArray());
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      failure = e;
+      throw e;
+    }
+    // The changes are durable, so queries may now see them.
+    for (Change change : changes) {
+      change.applyTo(calendar);
+    }
+    sinceCheckpoint += changes.size();
+    durable = batchEnd;
+  }
+
+  /**
+   * Returns the bytes of {@code event} as they appear in its records. Called before a write touches
+   * anything, so that an event which cannot be logged changes nothing.
+   */
+  private static byte[] encodeEvent(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeUTF(event.getTitle());
+      out.writeInt(event.getWhen().start());
+      out.writeInt(event.getWhen().duration());
+      out.writeInt(event.getAttendees().size());
+      for (String attendee : event.getAttendees()) {
+        if (attendee == null) {
+          throw new IllegalArgumentException("attendees cannot contain null");
+        }
+        out.writeUTF(attendee);
+      }
+    } catch (UTFDataFormatException e) {
+      throw new IllegalArgumentException("The event has a title or attendee too long to log", e);
+    } catch (IOException e) {
+      // Writing to memory does not fail otherwise.
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Returns the record of a change to the event with {@code id}, given the bytes of the event,
+   * which are empty for a removal.
+   */
+  private static byte[] encode(byte kind, long id, byte[] encodedEvent) {
+    ByteBuffer payload = ByteBuffer.allocate(1 + 8 + encodedEvent.length);
+    payload.put(kind).putLong(id).put(encodedEvent);
+    CRC32 crc = new CRC32();
+    crc.update(payload.array());
+    ByteBuffer record = ByteBuffer.allocate(8 + payload.capacity());
+    record.putInt(payload.capacity()).putInt((int) crc.getValue()).put(payload.array());
+    return record.array();
+  }
+
+  /**
+   * Returns the bytes of the next record, or null if there is no complete, intact record left in
+   * the {@code remaining} bytes of the file.
+   */
+  private static byte[] readRecord(DataInputStream in, long remaining) throws IOException {
+    if (remaining < 8) {
+      return null;
+    }
+    int length = in.readInt();
+    int checksum = in.readInt();
+    if (length < MIN_RECORD_BYTES || length > MAX_RECORD_BYTES || length > remaining - 8) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    return (int) crc.getValue() == checksum ? bytes : null;
+  }
+
+  /**
+   * Returns true if an intact record starts anywhere in the file from byte {@code from} on. Only
+   * called once replay has stopped at a bad record, to tell a torn end of the file from damage in
+   * its middle.
+   */
+  private static boolean hasIntactRecord(FileChannel channel, long from) throws IOException {
+    long size = channel.size();
+    if (size - from > Integer.MAX_VALUE) {
+      // Far more than a torn write leaves behind.
+      return true;
+    }
+    ByteBuffer rest = channel.map(FileChannel.MapMode.READ_ONLY, from, size - from);
+    CRC32 crc = new CRC32();
+    for (int at = 0; at + 8 + MIN_RECORD_BYTES <= rest.limit(); at++) {
+      int length = rest.getInt(at);
+      if (length < MIN_RECORD_BYTES || length > MAX_RECORD_BYTES
+          || length > rest.limit() - at - 8) {
+        continue;
+      }
+      ByteBuffer bytes = rest.duplicate();
+      bytes.position(at + 8).limit(at + 8 + length);
+      crc.reset();
+      crc.update(bytes);
+      if ((int) crc.getValue() == rest.getInt(at + 4)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void apply(byte[] record, SnapshotCalendar calendar) throws IOException {
+    decode(record).applyTo(calendar);
+  }
+
+  /**
+   * Returns the change that {@code record} makes.
+   */
+  private static Change decode(byte[] record) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+    try {
+      byte kind = in.readByte();
+      long id = in.readLong();
+      if (kind == DELETE) {
+        return new Change(id, null);
+      }
+      if (kind != PUT) {
+        throw new IOException("Unknown change " + kind + " in the event log");
+      }
+      String title = in.readUTF();
+      TimeRange when = TimeRange.fromStartDuration(in.readInt(), in.readInt());
+      int attendeeCount = in.readInt();
+      List<String> attendees = new ArrayList<>(attendeeCount);
+      for (int i = 0; i < attendeeCount; i++) {
+        attendees.add(in.readUTF());
+      }
+      return new Change(id, new Event(title, when, attendees));
+    } catch (EOFException e) {
+      throw new IOException("A change in the event log is cut short", e);
+    }
+  }
+
+  /**
+   * Writes every event in {@code snapshot} to {@code file}, replacing it atomically: the events are
+   * written to a temporary file, which is forced to disk and then renamed. The file is a header of
+   * its format, the id the next added event gets and the number of events, followed by an add
+   * record for every event.
+   */
+  private static void writeCheckpoint(Path file, CalendarSnapshot snapshot) throws IOException {
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+      out.writeInt(CHECKPOINT_MAGIC);
+      out.writeLong(snapshot.nextId());
+      out.writeInt(snapshot.size());
+      for (Map.Entry<Long, Event> entry : snapshot.getEvents().entrySet()) {
+        byte[] encoded;
+        try {
+          encoded = encodeEvent(entry.getValue());
+        } catch (IllegalArgumentException e) {
+          throw new IOException("Event " + entry.getKey() + " cannot be checkpointed", e);
+        }
+        out.write(encode(PUT, entry.getKey(), encoded));
+      }
+      out.flush();
+      channel.force(true);
+    }
+    Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    // The rename must be on disk before the log is emptied.
+    try (FileChannel directory =
+        FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+      directory.force(true);
+    } catch (IOException e) {
+      // Not every platform can open a directory to force it. There the rename is as durable as
+      // the platform makes it.
+    }
+  }
+
+  /**
+   * Replaces the events in {@code calendar} with the ones in the checkpoint {@code file}.
+   */
+  private static void restoreCheckpoint(Path file, SnapshotCalendar calendar) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      long remaining = Files.size(file) - 16;
+      if (remaining < 0 || in.readInt() != CHECKPOINT_MAGIC) {
+        throw new IOException("Not an event log checkpoint: " + file);
+      }
+      long nextId = in.readLong();
+      int count = in.readInt();
+      SortedMap<Long, Event> events = new TreeMap<>();
+      for (int i = 0; i < count; i++) {
+        byte[] record = readRecord(in, remaining);
+        Change change = record == null ? null : decode(record);
+        if (change == null || change.event == null) {
+          throw new IOException("The checkpoint " + file + " is damaged at event " + i);
+        }
+        events.put(change.id, change.event);
+        remaining -= 8 + record.length;
+      }
+      calendar.restore(events, nextId);
+    }
+  }
+
+  /**
+   * A queued change to the event with {@code id}, which is removed if {@code event} is null.
+   */
+  private static final class Change {
+    private final long id;
+    private final Event event;
+
+    Change(long id, Event event) {
+      this.id = id;
+      this.event = event;
+    }
+
+    void applyTo(SnapshotCalendar calendar) {
+      if (event == null) {
+        calendar.remove(id);
+      } else {
+        calendar.put(id, event);
+      }
+    }
+  }
+}
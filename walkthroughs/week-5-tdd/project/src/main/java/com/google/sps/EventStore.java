@@ -0,0 +1,403 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact in-memory calendar. Events are kept column by column in plain arrays instead of as
+ * {@link Event} objects. Attendees are stored as sorted ids from an {@link AttendeeDictionary}, all
+ * events' ids in one shared {@code int[]}. With three attendees, an event costs about 35 bytes
+ * besides its title, against about 320 as an {@code Event}. Recurring events are kept whole, and
+ * their occurrences are only computed for the time being looked at.
+ *
+ * <p>The store can also keep an {@link EventIndex} over its events for the scheduler, and an
+ * {@link IntervalTree} of event positions to find the events at a given time without a full scan.
+ * They cost about 140 and 80 more bytes an event, so each is only built the first time something
+ * asks for it, and is kept up to date from then on. A store that only seeds a
+ * {@link SnapshotCalendar} never builds either.
+ *
+ * <p>A store is filled by a single thread, usually an {@link EventLoader}, and must be fully
+ * loaded before it is shared with readers.
+ */
+public final class EventStore {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private String[] titles = new String[INITIAL_CAPACITY];
+  private int[] starts = new int[INITIAL_CAPACITY];
+  private int[] durations = new int[INITIAL_CAPACITY];
+  // The attendees of event i are attendeeIds[attendeeOffsets[i]] up to attendeeOffsets[i + 1].
+  private int[] attendeeOffsets = new int[INITIAL_CAPACITY + 1];
+  private int[] attendeeIds = new int[INITIAL_CAPACITY];
+  private int size = 0;
+  private final AttendeeDictionary dictionary = new AttendeeDictionary();
+  // Built from the columns the first time they are needed, and kept up to date from then on.
+  private EventIndex index;
+  private IntervalTree<Integer> eventsByTime;
+  // The span of time covered by all events, so scans can tell when the tree will not help.
+  private int earliestStart = Integer.MAX_VALUE;
+  private int latestEnd = Integer.MIN_VALUE;
+  // Recurring events, with the sorted attendee ids of each.
+  private final List<RecurringEvent> recurring = new ArrayList<>();
+  private final List<int[]> recurringAttendeeIds = new ArrayList<>();
+  private long version = 0;
+
+  /**
+   * Creates an empty store.
+   */
+  public EventStore() {}
+
+  /**
+   * Creates a store holding {@code events}.
+   *
+   * @param events The events to store. Must be non-null.
+   */
+  public EventStore(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    for (Event event : events) {
+      add(event.getTitle(), event.getWhen(), event.getAttendees());
+    }
+  }
+
+  /**
+   * Appends an event.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param when The time when the event takes place. Must be non-null.
+   * @param attendees The people attending the event. Must be non-null. Duplicates are ignored.
+   */
+  public void add(String title, TimeRange when, Collection<String> attendees) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    if (size == titles.length) {
+      int capacity = size * 2;
+      titles = Arrays.copyOf(titles, capacity);
+      starts = Arrays.copyOf(starts, capacity);
+      durations = Arrays.copyOf(durations, capacity);
+      attendeeOffsets = Arrays.copyOf(attendeeOffsets, capacity + 1);
+    }
+    int from = attendeeOffsets[size];
+    if (from + attendees.size() > attendeeIds.length) {
+      attendeeIds =
+          Arrays.copyOf(attendeeIds, Math.max(attendeeIds.length * 2, from + attendees.size()));
+    }
+    int to = from;
+    for (String attendee : attendees) {
+      attendeeIds[to++] = dictionary.idOf(attendee);
+    }
+    Arrays.sort(attendeeIds, from, to);
+    to = removeDuplicates(attendeeIds, from, to);
+
+    titles[size] = title;
+    starts[size] = when.start();
+    durations[size] = when.duration();
+    attendeeOffsets[size + 1] = to;
+    size++;
+    if (index != null) {
+      index.add(when, getAttendees(size - 1));
+    }
+    if (eventsByTime != null) {
+      eventsByTime.add(when, size - 1);
+    }
+    earliestStart = Math.min(earliestStart, when.start());
+    latestEnd = Math.max(latestEnd, when.end());
+    version++;
+  }
+
+  /**
+   * Adds an event that repeats every few days. Its occurrences are never stored; every lookup
+   * computes the ones it needs.
+   */
+  public void addRecurring(RecurringEvent event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    int[] ids = new int[event.getAttendees().size()];
+    int k = 0;
+    for (String attendee : event.getAttendees()) {
+      ids[k++] = dictionary.idOf(attendee);
+    }
+    Arrays.sort(ids);
+    recurring.add(event);
+    recurringAttendeeIds.add(ids);
+    if (index != null) {
+      index.add(event);
+    }
+    version++;
+  }
+
+  /**
+   * Returns a read-only view of the recurring events, in the order they were added.
+   */
+  public List<RecurringEvent> getRecurringEvents() {
+    return Collections.unmodifiableList(recurring);
+  }
+
+  /**
+   * Returns the number of events in the store.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the event at position {@code i}, in the order the events were added. The
+   * {@link Event} is built on demand.
+   */
+  public Event get(int i) {
+    return new Event(getTitle(i), getWhen(i), getAttendees(i));
+  }
+
+  /**
+   * Returns the title of the event at position {@code i}.
+   */
+  public String getTitle(int i) {
+    checkIndex(i);
+    return titles[i];
+  }
+
+  /**
+   * Returns when the event at position {@code i} takes place.
+   */
+  public TimeRange getWhen(int i) {
+    checkIndex(i);
+    return TimeRange.fromStartDuration(starts[i], durations[i]);
+  }
+
+  /**
+   * Returns a read-only list of the attendees of the event at position {@code i}.
+   */
+  public List<String> getAttendees(int i) {
+    checkIndex(i);
+    int from = attendeeOffsets[i];
+    int to = attendeeOffsets[i + 1];
+    return new AbstractList<String>() {
+      @Override
+      public String get(int k) {
+        if (k < 0 || k >= to - from) {
+          throw new IndexOutOfBoundsException("No attendee at " + k);
+        }
+        return dictionary.name(attendeeIds[from + k]);
+      }
+
+      @Override
+      public int size() {
+        return to - from;
+      }
+    };
+  }
+
+  /**
+   * Returns a read-only view of the events, which builds each {@link Event} as it is read.
+   */
+  public List<Event> getEvents() {
+    return new AbstractList<Event>() {
+      @Override
+      public Event get(int i) {
+        return EventStore.this.get(i);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Returns the events that overlap {@code range}, sorted by start time, including every
+   * occurrence of a recurring event as an event of its own. Only the events found are visited, not
+   * the whole store.
+   */
+  public List<Event> getEventsOverlapping(TimeRange range) {
+    List<Event> events = new ArrayList<>();
+    getEventsByTime().forEachOverlapping(range, i -> events.add(get(i)));
+    if (!recurring.isEmpty()) {
+      for (RecurringEvent event : recurring) {
+        for (TimeRange occurrence : event.getOccurrences(range)) {
+          events.add(new Event(event.getTitle(), occurrence, event.getAttendees()));
+        }
+      }
+      events.sort((a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+    }
+    return events;
+  }
+
+  /**
+   * Returns the index over the events in this store, for {@link FindMeetingQuery}. The index is
+   * built on the first call, and then kept up to date as events are added.
+   */
+  public synchronized EventIndex getIndex() {
+    if (index == null) {
+      EventIndex built = new EventIndex();
+      for (int i = 0; i < size; i++) {
+        built.add(getWhen(i), getAttendees(i));
+      }
+      for (RecurringEvent event : recurring) {
+        built.add(event);
+      }
+      index = built;
+    }
+    return index;
+  }
+
+  /**
+   * Returns a number that changes every time an event is added, so that readers can tell whether
+   * anything they derived from the store is stale.
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  AttendeeDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * Scans every event that overlaps {@code window} and adds its time to {@code finder} if someone
+   * in {@code mandatory} or {@code optional} attends it. Both groups are bitsets from
+   * {@link AttendeeDictionary#toBitset}. An event that blocks a mandatory attendee blocks
+   * everyone, so it is only added as mandatory busy time. A full scan of a very large store runs
+   * in parallel.
+   */
+  void addBusyTimes(long[] mandatory, long[] optional, TimeRange window, BusySink finder) {
+    addBusyTimes(mandatory, optional, window, finder, ParallelBusyCollector.threshold());
+  }
+
+  /**
+   * Same as {@link #addBusyTimes(long[], long[], TimeRange, BusySink)}, but scans in parallel from
+   * {@code parallelThreshold} events on.
+   */
+  void addBusyTimes(
+      long[] mandatory, long[] optional, TimeRange window, BusySink finder, int parallelThreshold) {
+    int windowStart = window.start();
+    int windowEnd = window.end();
+    if (windowStart > earliestStart || windowEnd < latestEnd) {
+      // The window leaves out part of the calendar, so only visit the events inside it.
+      getEventsByTime()
+          .forEachOverlapping(window, i -> addBusyTime(i, mandatory, optional, finder));
+      return;
+    }
+    if (size >= parallelThreshold) {
+      ParallelBusyCollector.collect(size, (from, to, chunkSink) ->
+          scan(from, to, mandatory, optional, window, chunkSink), finder);
+      return;
+    }
+    scan(0, size, mandatory, optional, window, finder);
+  }
+
+  /**
+   * Adds the occurrences in {@code window} of every recurring event that someone in
+   * {@code mandatory} or {@code optional} attends, like {@link #addBusyTimes} does for events.
+   */
+  void addRecurringBusyTimes(long[] mandatory, long[] optional, TimeRange window, BusySink finder) {
+    for (int r = 0; r < recurring.size(); r++) {
+      long mandatoryHit = 0;
+      long optionalHit = 0;
+      for (int id : recurringAttendeeIds.get(r)) {
+        mandatoryHit |= mandatory[id >>> 6] >>> id;
+        optionalHit |= optional[id >>> 6] >>> id;
+      }
+      if ((mandatoryHit & 1) != 0) {
+        recurring.get(r).addOccurrences(window, finder, false);
+      } else if ((optionalHit & 1) != 0) {
+        recurring.get(r).addOccurrences(window, finder, true);
+      }
+    }
+  }
+
+  /**
+   * Returns the tree of event positions by time, building it on the first call.
+   */
+  private synchronized IntervalTree<Integer> getEventsByTime() {
+    if (eventsByTime == null) {
+      IntervalTree<Integer> built = new IntervalTree<>();
+      for (int i = 0; i < size; i++) {
+        built.add(getWhen(i), i);
+      }
+      eventsByTime = built;
+    }
+    return eventsByTime;
+  }
+
+  private void scan(
+      int from, int to, long[] mandatory, long[] optional, TimeRange window, BusySink finder) {
+    int windowStart = window.start();
+    int windowEnd = window.end();
+    for (int i = from; i < to; i++) {
+      int start = starts[i];
+      int end = start + durations[i];
+      if (start < windowEnd && end > windowStart) {
+        addBusyTime(i, mandatory, optional, finder);
+      }
+    }
+  }
+
+  private void addBusyTime(int i, long[] mandatory, long[] optional, BusySink finder) {
+    // OR the attendees' bits together and test once, so the loop has no branch per attendee.
+    long mandatoryHit = 0;
+    long optionalHit = 0;
+    for (int k = attendeeOffsets[i]; k < attendeeOffsets[i + 1]; k++) {
+      int id = attendeeIds[k];
+      mandatoryHit |= mandatory[id >>> 6] >>> id;
+      optionalHit |= optional[id >>> 6] >>> id;
+    }
+    int start = starts[i];
+    int end = start + durations[i];
+    if ((mandatoryHit & 1) != 0) {
+      finder.addBusy(start, end, false);
+    } else if ((optionalHit & 1) != 0) {
+      finder.addBusy(start, end, true);
+    }
+  }
+
+  private static int removeDuplicates(int[] sorted, int from, int to) {
+    if (from == to) {
+      return to;
+    }
+    int last = from;
+    for (int k = from + 1; k < to; k++) {
+      if (sorted[k] != sorted[last]) {
+        sorted[++last] = sorted[k];
+      }
+    }
+    return last + 1;
+  }
+
+  private void checkIndex(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("No event at " + i + " in a store of " + size);
+    }
+  }
+}
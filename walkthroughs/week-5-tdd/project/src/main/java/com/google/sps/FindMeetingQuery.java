@@ -11,88 +11,547 @@
 // WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
 // See the License for the specific language governing permissions and
 // limitations under the License.
- 
+
 package com.google.sps;
- 
-import java.util.Collection;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.HashSet;
+import java.util.stream.Collectors;
 
- 
 public final class FindMeetingQuery {
- 
-   /**
-   * Given a meeting request and the other events that occur on that day, returns all the time slots when the meeting could happen, based on:
-   * If one or more time slots exists so that both mandatory and optional attendees can attend, it returns those time slots.
+  // Requests with at least this many attendees use the bitmap engine, which beats sorting the
+  // busy intervals once there are enough of them. SlotFinderBenchmark in ../benchmarks measures
+  // the crossover.
+  static final int BITMAP_MIN_ATTENDEES = 4;
+  // Bitmaps cost one bit per minute of the window, so long windows stay with the sorting engine.
+  static final int BITMAP_MAX_WINDOW = 7 * TimeRange.MINUTES_PER_DAY;
+
+  // Sweeps keep their buffers between queries, so each thread reuses one instead of allocating.
+  private static final ThreadLocal<SlotSweep> SWEEPS = ThreadLocal.withInitial(SlotSweep::new);
+  private static final ThreadLocal<BitmapSweep> BITMAP_SWEEPS =
+      ThreadLocal.withInitial(BitmapSweep::new);
+  private static final ThreadLocal<OptionalAttendanceSweep> ATTENDANCE_SWEEPS =
+      ThreadLocal.withInitial(OptionalAttendanceSweep::new);
+
+  /**
+   * Given a meeting request and the other events that occur on that day, returns all the time
+   * slots when the meeting could happen, based on:
+   * If one or more time slots exists so that both mandatory and optional attendees can attend, it
+   * returns those time slots.
    * Otherwise, returns the time slots that fit just the mandatory attendees.
+   * If the request asks to maximize optional attendees, it instead returns the time slots that
+   * fit the mandatory attendees and the largest possible number of optional attendees.
+   * If the request sets a maximum number of results, only that many slots are returned, best
+   * first, as described in {@link #queryRanked(Collection, MeetingRequest, TimeRange, SlotScorer)}.
+   * If the request sets a search window, only the part of the day inside it is searched. Time
+   * outside an attendee's working hours counts as busy time of that attendee, so mandatory
+   * attendees are only met during their working hours.
    */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-    if (request.getDuration() >= TimeRange.WHOLE_DAY.duration()) {
-        return Arrays.asList();
-    }
-    List<TimeRange> occupiedSlotsMandatory = getOccupiedSlots(events, request.getAttendees(),  new ArrayList<TimeRange>());
-    List<TimeRange> occupiedSlotsAll = getOccupiedSlots(events, request.getOptionalAttendees(), new ArrayList<TimeRange>(occupiedSlotsMandatory));
-    List<TimeRange> availableSlotsAllAttendees = getOptionalSlots(occupiedSlotsAll, request);
-    if (availableSlotsAllAttendees.isEmpty()) {
-        return getOptionalSlots(occupiedSlotsMandatory, request);
-    }  
-    return availableSlotsAllAttendees;
-  } 
- 
-    
-    /* Recieves a collection of events, and a list of requested attendees and a list of occupied slots and adds to that list all the slots occupied by the requested attendies sorted by start time in ascending order*/
-    private List<TimeRange> getOccupiedSlots(Collection<Event> events, Collection<String> requestedAttendees, List<TimeRange> occupiedSlots) {
-        Set<String> requestedAttendeesSet = new HashSet<>(requestedAttendees);
-        for (Event event: events) {
-            for (String attendee: event.getAttendees()) {
-                if (requestedAttendeesSet.contains(attendee)) {
-                    occupiedSlots.add(event.getWhen());
-                    break;
-                }
-            }
-        }
-        Collections.sort(occupiedSlots, TimeRange.ORDER_BY_START);
-        return occupiedSlots;
+    return query(events, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but searches {@code window} instead of a
+   * single day. The window can span any number of days, for example
+   * {@code TimeRange.fromDays(0, 7)} for a week, and is covered by a single sweep; a free slot
+   * that runs past midnight is returned as one range.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events, MeetingRequest request, TimeRange window) {
+    TimeRange searchWindow = clipToSearchWindow(request, window);
+    if (request.getDuration() >= searchWindow.duration()) {
+      return Arrays.asList();
+    }
+    if (request.getMaxResults() > 0) {
+      return rankSlots(
+          fillAttendanceSweep(events, request, searchWindow), request, request.getRanking());
+    }
+    if (request.shouldMaximizeOptionalAttendees()) {
+      return fillAttendanceSweep(events, request, searchWindow).run().toTimeRanges();
+    }
+
+    Set<String> mandatoryAttendees = new HashSet<>(request.getAttendees());
+    Set<String> optionalAttendees = new HashSet<>(request.getOptionalAttendees());
+    SlotFinder sweep = slotFinderFor(request, searchWindow);
+    addBusyTimes(events, mandatoryAttendees, optionalAttendees, searchWindow, sweep);
+    addOffHours(request, searchWindow, sweep);
+    return findSlots(sweep, request, searchWindow);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but reads the busy times from an index so
+   * that only the events of the requested attendees are visited.
+   */
+  public Collection<TimeRange> query(EventIndex index, MeetingRequest request) {
+    return query(index, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but reads the busy times from
+   * an index. The index keeps each attendee's busy time already merged, so only the merged
+   * intervals of the requested attendees that reach into the window are visited.
+   */
+  public Collection<TimeRange> query(EventIndex index, MeetingRequest request, TimeRange window) {
+    return queryMerged(index::addMergedBusyTimes, request, window);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but reads the busy times from a snapshot
+   * of a {@link SnapshotCalendar}.
+   */
+  public Collection<TimeRange> query(CalendarSnapshot snapshot, MeetingRequest request) {
+    return query(snapshot, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(EventIndex, MeetingRequest, TimeRange)}, but reads the busy times from
+   * a snapshot, which keeps each attendee's busy time merged just like an index does. Writes to
+   * the calendar made while the query runs are not seen.
+   */
+  public Collection<TimeRange> query(
+      CalendarSnapshot snapshot, MeetingRequest request, TimeRange window) {
+    return queryMerged(snapshot::addMergedBusyTimes, request, window);
+  }
+
+  private static Collection<TimeRange> queryMerged(
+      MergedBusyTimes busyTimes, MeetingRequest request, TimeRange window) {
+    TimeRange searchWindow = clipToSearchWindow(request, window);
+    if (request.getDuration() >= searchWindow.duration()) {
+      return Arrays.asList();
+    }
+    if (request.getMaxResults() > 0) {
+      return rankSlots(
+          fillAttendanceSweep(busyTimes, request, searchWindow), request, request.getRanking());
+    }
+    if (request.shouldMaximizeOptionalAttendees()) {
+      return fillAttendanceSweep(busyTimes, request, searchWindow).run().toTimeRanges();
+    }
+
+    SlotFinder sweep = slotFinderFor(request, searchWindow);
+    for (String attendee : request.getAttendees()) {
+      busyTimes.add(attendee, searchWindow, sweep, false);
+    }
+    for (String attendee : request.getOptionalAttendees()) {
+      busyTimes.add(attendee, searchWindow, sweep, true);
+    }
+    addOffHours(request, searchWindow, sweep);
+    return findSlots(sweep, request, searchWindow);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but scans the events of a store. The
+   * requested attendees become bitsets of attendee ids, so the scan never touches a string.
+   */
+  public Collection<TimeRange> query(EventStore store, MeetingRequest request) {
+    return query(store, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but scans the events of a
+   * store. Requests that maximize optional attendees or ask for ranked slots need every optional
+   * attendee's busy times separately, so they are answered from the store's index instead.
+   */
+  public Collection<TimeRange> query(EventStore store, MeetingRequest request, TimeRange window) {
+    if (request.getMaxResults() > 0 || request.shouldMaximizeOptionalAttendees()) {
+      return query(store.getIndex(), request, window);
+    }
+    TimeRange searchWindow = clipToSearchWindow(request, window);
+    if (request.getDuration() >= searchWindow.duration()) {
+      return Arrays.asList();
+    }
+
+    AttendeeDictionary dictionary = store.getDictionary();
+    long[] mandatoryAttendees = dictionary.toBitset(request.getAttendees());
+    long[] optionalAttendees = dictionary.toBitset(request.getOptionalAttendees());
+    SlotFinder sweep = slotFinderFor(request, searchWindow);
+    store.addBusyTimes(mandatoryAttendees, optionalAttendees, searchWindow, sweep);
+    store.addRecurringBusyTimes(mandatoryAttendees, optionalAttendees, searchWindow, sweep);
+    addOffHours(request, searchWindow, sweep);
+    return findSlots(sweep, request, searchWindow);
+  }
+
+  /**
+   * Same as {@link #query(EventIndex, MeetingRequest)}, but also finds a room: returns the slots
+   * in which the attendees and at least one room that seats
+   * {@link MeetingRequest#getRoomCapacity()} people are all free, each with such a room.
+   */
+  public List<RoomSlot> queryWithRooms(EventIndex index, RoomIndex rooms, MeetingRequest request) {
+    return queryWithRooms(index, rooms, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #queryWithRooms(EventIndex, RoomIndex, MeetingRequest)}, but searches
+   * {@code window} instead of a single day. The attendees' slots are found as by
+   * {@link #query(EventIndex, MeetingRequest, TimeRange)}, falling back to the mandatory attendees
+   * if no slot fits the optional ones too, and are then matched against the free time of the
+   * rooms. A slot that several rooms fit is returned once for each room whose free time reaches
+   * further; among rooms that are free for the same time, the smallest is picked. The answer is
+   * sorted by start time.
+   */
+  public List<RoomSlot> queryWithRooms(
+      EventIndex index, RoomIndex rooms, MeetingRequest request, TimeRange window) {
+    TimeRange searchWindow = clipToSearchWindow(request, window);
+    if (request.getDuration() >= searchWindow.duration()) {
+      return Arrays.asList();
+    }
+
+    SlotFinder sweep = slotFinderFor(request, searchWindow);
+    for (String attendee : request.getAttendees()) {
+      index.addMergedBusyTimes(attendee, searchWindow, sweep, false);
+    }
+    for (String attendee : request.getOptionalAttendees()) {
+      index.addMergedBusyTimes(attendee, searchWindow, sweep, true);
+    }
+    addOffHours(request, searchWindow, sweep);
+    List<RoomSlot> roomSlots = new ArrayList<>();
+    rooms.availability(request.getRoomCapacity())
+        .addRoomSlots(findSlotBuffer(sweep, request, searchWindow), request.getDuration(),
+            roomSlots);
+    return roomSlots;
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but scans the events of a memory-mapped
+   * store.
+   */
+  public Collection<TimeRange> query(MappedEventStore store, MeetingRequest request) {
+    return query(store, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but scans the events of a
+   * memory-mapped store in place. Requests that maximize optional attendees or ask for ranked slots
+   * scan the store once more for each optional attendee.
+   */
+  public Collection<TimeRange> query(
+      MappedEventStore store, MeetingRequest request, TimeRange window) {
+    TimeRange searchWindow = clipToSearchWindow(request, window);
+    if (request.getDuration() >= searchWindow.duration()) {
+      return Arrays.asList();
+    }
+    if (request.getMaxResults() > 0) {
+      return rankSlots(
+          fillAttendanceSweep(store, request, searchWindow), request, request.getRanking());
+    }
+    if (request.shouldMaximizeOptionalAttendees()) {
+      return fillAttendanceSweep(store, request, searchWindow).run().toTimeRanges();
+    }
+
+    AttendeeDictionary dictionary = store.getDictionary();
+    long[] mandatoryAttendees = dictionary.toBitset(request.getAttendees());
+    long[] optionalAttendees = dictionary.toBitset(request.getOptionalAttendees());
+    SlotFinder sweep = slotFinderFor(request, searchWindow);
+    store.addBusyTimes(mandatoryAttendees, optionalAttendees, searchWindow, sweep);
+    addOffHours(request, searchWindow, sweep);
+    return findSlots(sweep, request, searchWindow);
+  }
+
+  /**
+   * Answers many requests against the same events. The events are indexed once, and the requests
+   * are then answered in parallel on the common fork-join pool. The answers are returned in the
+   * iteration order of {@code requests}.
+   */
+  public List<Collection<TimeRange>> queryAll(
+      Collection<Event> events, Collection<MeetingRequest> requests) {
+    return queryAll(new EventIndex(events), requests);
+  }
+
+  /**
+   * Same as {@link #queryAll(Collection, Collection)}, but reuses an existing index.
+   */
+  public List<Collection<TimeRange>> queryAll(
+      EventIndex index, Collection<MeetingRequest> requests) {
+    // The index is read-only and every worker thread has its own sweeps, so the requests can be
+    // answered independently.
+    return requests.parallelStream()
+        .map(request -> query(index, request))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Same as {@link #queryAll(Collection, Collection)}, but answers every request from the same
+   * snapshot of a {@link SnapshotCalendar}.
+   */
+  public List<Collection<TimeRange>> queryAll(
+      CalendarSnapshot snapshot, Collection<MeetingRequest> requests) {
+    return requests.parallelStream()
+        .map(request -> query(snapshot, request))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the best {@code request.getMaxResults()} slots in {@code window}, best first, as
+   * scored by {@code scorer} instead of the request's own ranking. Slots that all optional
+   * attendees can make are preferred, as in the unranked query; when there are none, the slots the
+   * mandatory attendees can make are split wherever the number of missing optional attendees
+   * changes, so that scorers can tell them apart. If the request does not set a maximum, every slot
+   * is returned in ranked order.
+   */
+  public List<TimeRange> queryRanked(
+      Collection<Event> events, MeetingRequest request, TimeRange window, SlotScorer scorer) {
+    TimeRange searchWindow = clipToSearchWindow(request, window);
+    if (request.getDuration() >= searchWindow.duration()) {
+      return Arrays.asList();
+    }
+    return rankSlots(fillAttendanceSweep(events, request, searchWindow), request, scorer);
+  }
+
+  /**
+   * Same as {@link #queryRanked(Collection, MeetingRequest, TimeRange, SlotScorer)}, but reads the
+   * busy times from an index.
+   */
+  public List<TimeRange> queryRanked(
+      EventIndex index, MeetingRequest request, TimeRange window, SlotScorer scorer) {
+    TimeRange searchWindow = clipToSearchWindow(request, window);
+    if (request.getDuration() >= searchWindow.duration()) {
+      return Arrays.asList();
     }
+    return rankSlots(fillAttendanceSweep(index, request, searchWindow), request, scorer);
+  }
+
+  private static List<TimeRange> rankSlots(
+      OptionalAttendanceSweep sweep, MeetingRequest request, SlotScorer scorer) {
+    int limit = request.getMaxResults() > 0 ? request.getMaxResults() : Integer.MAX_VALUE;
+    TopSlots topSlots = new TopSlots(request, scorer, limit);
+    sweep.runAll(topSlots);
+    return topSlots.ranked();
+  }
 
+  private static OptionalAttendanceSweep fillAttendanceSweep(
+      Collection<Event> events, MeetingRequest request, TimeRange window) {
+    Set<String> mandatoryAttendees = new HashSet<>(request.getAttendees());
+    Map<String, IntervalBuffer> optionalBusyTimes = new HashMap<>();
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalBusyTimes.put(attendee, new IntervalBuffer());
+    }
 
-    /* Recieves a list of occupied slots sorted by start time and returns all possible meeting slots */
-    private List<TimeRange> getOptionalSlots(List<TimeRange> occupiedSlots, MeetingRequest request) {
-        if (occupiedSlots.isEmpty()) {
-            return Arrays.asList(TimeRange.WHOLE_DAY);
+    OptionalAttendanceSweep sweep = startAttendanceSweep(request, window);
+    for (Event event : events) {
+      if (!overlapsWindow(event.getWhen(), window)) {
+        continue;
+      }
+      if (event.isAttendedByAny(mandatoryAttendees)) {
+        sweep.addBusy(event.getWhen(), false);
+        continue;
+      }
+      for (String attendee : event.getAttendees()) {
+        IntervalBuffer busyTimes = optionalBusyTimes.get(attendee);
+        if (busyTimes != null) {
+          busyTimes.add(event.getWhen());
         }
-        List<TimeRange> meetingSlots =  new ArrayList <>(); 
-        int start = TimeRange.START_OF_DAY;
-        int end =  occupiedSlots.get(0).start();
-        int slotDuration = end - start;
-        for (int i = 0;  i < occupiedSlots.size(); i++) {
-            if (legalSlot(slotDuration, request.getDuration())) {
-                meetingSlots.add(TimeRange.fromStartEnd(start, end, false));
-            }
-            if (occupiedSlots.get(i).end() > start){
-                start = occupiedSlots.get(i).end();
-            }
-            // If this is the last occupied slot, end of meeting slot will be the end of the day
-            if (i == occupiedSlots.size() - 1) {
-                end =  TimeRange.END_OF_DAY;
-            } else {
-                end = occupiedSlots.get(i + 1).start();
-            }
-            slotDuration = end - start;
+      }
+    }
+    for (String attendee : request.getAttendees()) {
+      addOffHours(request, attendee, window, sweep, false);
+    }
+    for (Map.Entry<String, IntervalBuffer> entry : optionalBusyTimes.entrySet()) {
+      IntervalBuffer busyTimes = entry.getValue();
+      for (int i = 0; i < busyTimes.size(); i++) {
+        sweep.addBusy(busyTimes.start(i), busyTimes.end(i), true);
+      }
+      addOffHours(request, entry.getKey(), window, sweep, true);
+      sweep.finishOptionalAttendee();
+    }
+    return sweep;
+  }
+
+  private static OptionalAttendanceSweep fillAttendanceSweep(
+      EventIndex index, MeetingRequest request, TimeRange window) {
+    return fillAttendanceSweep(index::addMergedBusyTimes, request, window);
+  }
+
+  private static OptionalAttendanceSweep fillAttendanceSweep(
+      MergedBusyTimes busyTimes, MeetingRequest request, TimeRange window) {
+    OptionalAttendanceSweep sweep = startAttendanceSweep(request, window);
+    for (String attendee : request.getAttendees()) {
+      busyTimes.add(attendee, window, sweep, false);
+      addOffHours(request, attendee, window, sweep, false);
+    }
+    for (String attendee : request.getOptionalAttendees()) {
+      busyTimes.add(attendee, window, sweep, true);
+      addOffHours(request, attendee, window, sweep, true);
+      sweep.finishOptionalAttendee();
+    }
+    return sweep;
+  }
+
+  private static OptionalAttendanceSweep fillAttendanceSweep(
+      MappedEventStore store, MeetingRequest request, TimeRange window) {
+    AttendeeDictionary dictionary = store.getDictionary();
+    long[] nobody = dictionary.toBitset(Collections.emptySet());
+    OptionalAttendanceSweep sweep = startAttendanceSweep(request, window);
+    store.addBusyTimes(dictionary.toBitset(request.getAttendees()), nobody, window, sweep);
+    for (String attendee : request.getAttendees()) {
+      addOffHours(request, attendee, window, sweep, false);
+    }
+    for (String attendee : request.getOptionalAttendees()) {
+      store.addBusyTimes(
+          nobody, dictionary.toBitset(Collections.singleton(attendee)), window, sweep);
+      addOffHours(request, attendee, window, sweep, true);
+      sweep.finishOptionalAttendee();
+    }
+    return sweep;
+  }
+
+  private static OptionalAttendanceSweep startAttendanceSweep(
+      MeetingRequest request, TimeRange window) {
+    OptionalAttendanceSweep sweep = ATTENDANCE_SWEEPS.get();
+    sweep.reset(window.start(), window.end(), request.getDuration());
+    return sweep;
+  }
+
+  /**
+   * Returns the part of {@code window} inside the request's search window, if it has one.
+   */
+  private static TimeRange clipToSearchWindow(MeetingRequest request, TimeRange window) {
+    TimeRange searchWindow = request.getSearchWindow();
+    if (searchWindow == null) {
+      return window;
+    }
+    int start = Math.max(window.start(), searchWindow.start());
+    int end = Math.min(window.end(), searchWindow.end());
+    return TimeRange.fromStartEnd(start, Math.max(start, end), false);
+  }
+
+  /**
+   * Adds the time in {@code window} outside every requested attendee's working hours as their
+   * busy time, so that the sweep never finds slots there in the first place.
+   */
+  private static void addOffHours(MeetingRequest request, TimeRange window, BusySink sink) {
+    if (request.getWorkingHours().isEmpty()) {
+      return;
+    }
+    for (String attendee : request.getAttendees()) {
+      addOffHours(request, attendee, window, sink, false);
+    }
+    for (String attendee : request.getOptionalAttendees()) {
+      addOffHours(request, attendee, window, sink, true);
+    }
+  }
+
+  private static void addOffHours(MeetingRequest request, String attendee, TimeRange window,
+      BusySink sink, boolean optional) {
+    TimeRange hours = request.getWorkingHours().get(attendee);
+    if (hours == null || hours.duration() >= TimeRange.MINUTES_PER_DAY) {
+      return;
+    }
+    // The offsets are cached per zone, so moving the hours to UTC is a table lookup per day.
+    ZoneOffsets zone = ZoneOffsets.of(request.getTimeZone(attendee));
+    int hoursStart = Math.floorMod(hours.start(), TimeRange.MINUTES_PER_DAY);
+    int hoursDuration = Math.max(0, hours.duration());
+    // Start a day early, in case the working hours of the day before run past midnight or the
+    // zone is ahead of UTC.
+    int firstDay = Math.floorDiv(window.start(), TimeRange.MINUTES_PER_DAY) - 1;
+    int offFrom = window.start();
+    for (int day = firstDay; ; day++) {
+      int workStart = day * TimeRange.MINUTES_PER_DAY + hoursStart - zone.offsetOnDay(day);
+      if (workStart >= window.end()) {
+        break;
+      }
+      if (workStart > offFrom) {
+        sink.addBusy(offFrom, workStart, optional);
+      }
+      offFrom = Math.max(offFrom, workStart + hoursDuration);
+    }
+    if (offFrom < window.end()) {
+      sink.addBusy(offFrom, window.end(), optional);
+    }
+  }
+
+  /**
+   * Picks the engine for a request: the bitmap for many attendees in a short window, and the
+   * sorting sweep otherwise. The engine is reset and ready for busy intervals.
+   */
+  static SlotFinder slotFinderFor(MeetingRequest request, TimeRange window) {
+    int attendees = request.getAttendees().size() + request.getOptionalAttendees().size();
+    SlotFinder finder = attendees >= BITMAP_MIN_ATTENDEES && window.duration() <= BITMAP_MAX_WINDOW
+        ? BITMAP_SWEEPS.get()
+        : SWEEPS.get();
+    finder.reset();
+    return finder;
+  }
+
+  private static Collection<TimeRange> findSlots(
+      SlotFinder sweep, MeetingRequest request, TimeRange window) {
+    // The sweep works on primitive intervals; only the answer is turned into TimeRanges.
+    return findSlotBuffer(sweep, request, window).toTimeRanges();
+  }
+
+  private static IntervalBuffer findSlotBuffer(
+      SlotFinder sweep, MeetingRequest request, TimeRange window) {
+    SlotSweep.Result result = sweep.run(window.start(), window.end(), request.getDuration());
+    if (result.allAttendees().isEmpty()) {
+      return result.mandatoryOnly();
+    }
+    return result.allAttendees();
+  }
+
+  private static boolean overlapsWindow(TimeRange when, TimeRange window) {
+    return when.start() < window.end() && when.end() > window.start();
+  }
+
+  /**
+   * Adds the busy time of every event in {@code window} that a requested attendee goes to. Very
+   * large collections are filtered in parallel.
+   */
+  static void addBusyTimes(Collection<Event> events, Set<String> mandatoryAttendees,
+      Set<String> optionalAttendees, TimeRange window, BusySink sink) {
+    addBusyTimes(events, mandatoryAttendees, optionalAttendees, window, sink,
+        ParallelBusyCollector.threshold());
+  }
+
+  /**
+   * Same as {@link #addBusyTimes(Collection, Set, Set, TimeRange, BusySink)}, but filters in
+   * parallel from {@code parallelThreshold} events on, so benchmarks and tests can pick the path.
+   */
+  static void addBusyTimes(Collection<Event> events, Set<String> mandatoryAttendees,
+      Set<String> optionalAttendees, TimeRange window, BusySink sink, int parallelThreshold) {
+    if (events.size() < parallelThreshold) {
+      for (Event event : events) {
+        if (overlapsWindow(event.getWhen(), window)) {
+          addBusy(sink, event, mandatoryAttendees, optionalAttendees);
         }
-        if (legalSlot(slotDuration, request.getDuration())) {
-            meetingSlots.add(TimeRange.fromStartEnd(start, end, true));
-        } 
-        return meetingSlots;
+      }
+      return;
     }
- 
-    private boolean legalSlot(int slotDuration, long duration) {
-        return (slotDuration > 0 && slotDuration >= duration);
+
+    // Chunks are positions, so the events need random access.
+    Event[] eventArray = events.toArray(new Event[0]);
+    ParallelBusyCollector.collect(eventArray.length, (from, to, chunkSink) -> {
+      for (int i = from; i < to; i++) {
+        if (overlapsWindow(eventArray[i].getWhen(), window)) {
+          addBusy(chunkSink, eventArray[i], mandatoryAttendees, optionalAttendees);
+        }
+      }
+    }, sink);
+  }
+
+  /**
+   * Adds the event as busy time if any requested attendee goes to it. An event that blocks a
+   * mandatory attendee blocks everyone, so it only needs the mandatory tag.
+   */
+  private static void addBusy(BusySink sink, Event event, Set<String> mandatoryAttendees,
+      Set<String> optionalAttendees) {
+    if (event.isAttendedByAny(mandatoryAttendees)) {
+      sink.addBusy(event.getWhen(), false);
+    } else if (!optionalAttendees.isEmpty() && event.isAttendedByAny(optionalAttendees)) {
+      sink.addBusy(event.getWhen(), true);
     }
- 
+  }
+
+  /**
+   * Where the merged busy times of attendees come from: an {@link EventIndex} or a
+   * {@link CalendarSnapshot}.
+   */
+  private interface MergedBusyTimes {
+    void add(String attendee, TimeRange window, BusySink sink, boolean optional);
+  }
 }
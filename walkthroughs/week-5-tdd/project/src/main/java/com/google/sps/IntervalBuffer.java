@@ -0,0 +1,257 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable list of half-open intervals {@code [start, end)} stored as two parallel {@code int}
+ * arrays. Sorting and coalescing work in place and never allocate, so a buffer can be cleared and
+ * reused across queries without producing garbage.
+ */
+final class IntervalBuffer {
+  // Ranges this short are finished with insertion sort instead of being partitioned further.
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private int[] starts;
+  private int[] ends;
+  private int size = 0;
+
+  IntervalBuffer() {
+    this(16);
+  }
+
+  IntervalBuffer(int initialCapacity) {
+    starts = new int[Math.max(1, initialCapacity)];
+    ends = new int[starts.length];
+  }
+
+  /**
+   * Appends {@code [start, end)}. Intervals with no duration are ignored since they can never
+   * block or hold a meeting.
+   */
+  void add(int start, int end) {
+    if (end <= start) {
+      return;
+    }
+    if (size == starts.length) {
+      starts = Arrays.copyOf(starts, size * 2);
+      ends = Arrays.copyOf(ends, size * 2);
+    }
+    starts[size] = start;
+    ends[size] = end;
+    size++;
+  }
+
+  void add(TimeRange range) {
+    add(range.start(), range.end());
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  int start(int i) {
+    return starts[i];
+  }
+
+  int end(int i) {
+    return ends[i];
+  }
+
+  /**
+   * Sorts the intervals by start time, breaking ties by end time, both in ascending order. Input
+   * that is already sorted, such as the output of {@link #mergeSorted}, is only checked.
+   */
+  void sort() {
+    for (int i = 1; i < size; i++) {
+      if (compare(i - 1, starts[i], ends[i]) > 0) {
+        sort(0, size - 1);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Merges overlapping and touching intervals so that the buffer holds disjoint intervals with
+   * gaps between them. The buffer must be sorted first.
+   */
+  void coalesce() {
+    if (size == 0) {
+      return;
+    }
+    int last = 0;
+    for (int i = 1; i < size; i++) {
+      if (starts[i] <= ends[last]) {
+        ends[last] = Math.max(ends[last], ends[i]);
+      } else {
+        last++;
+        starts[last] = starts[i];
+        ends[last] = ends[i];
+      }
+    }
+    size = last + 1;
+  }
+
+  /**
+   * Merges sorted buffers with a k-way merge and hands their intervals to {@code sink} in sorted
+   * order, tagged as {@code optional}. Costs O(n log k) for n intervals in k buffers, instead of
+   * sorting all of them again.
+   */
+  static void mergeSorted(IntervalBuffer[] runs, boolean optional, BusySink sink) {
+    // A binary min-heap of the runs that still have intervals, keyed by their next interval.
+    int[] heap = new int[runs.length];
+    int[] next = new int[runs.length];
+    int heapSize = 0;
+    for (int r = 0; r < runs.length; r++) {
+      if (!runs[r].isEmpty()) {
+        heap[heapSize++] = r;
+      }
+    }
+    for (int i = heapSize / 2 - 1; i >= 0; i--) {
+      siftDown(heap, heapSize, i, runs, next);
+    }
+    while (heapSize > 0) {
+      int r = heap[0];
+      IntervalBuffer run = runs[r];
+      sink.addBusy(run.starts[next[r]], run.ends[next[r]], optional);
+      if (++next[r] == run.size) {
+        heap[0] = heap[--heapSize];
+      }
+      siftDown(heap, heapSize, 0, runs, next);
+    }
+  }
+
+  private static void siftDown(int[] heap, int heapSize, int i, IntervalBuffer[] runs, int[] next) {
+    while (true) {
+      int smallest = i;
+      int left = 2 * i + 1;
+      int right = left + 1;
+      if (left < heapSize && isBefore(heap[left], heap[smallest], runs, next)) {
+        smallest = left;
+      }
+      if (right < heapSize && isBefore(heap[right], heap[smallest], runs, next)) {
+        smallest = right;
+      }
+      if (smallest == i) {
+        return;
+      }
+      int swap = heap[i];
+      heap[i] = heap[smallest];
+      heap[smallest] = swap;
+      i = smallest;
+    }
+  }
+
+  private static boolean isBefore(int a, int b, IntervalBuffer[] runs, int[] next) {
+    IntervalBuffer runA = runs[a];
+    IntervalBuffer runB = runs[b];
+    return runA.compare(next[a], runB.starts[next[b]], runB.ends[next[b]]) < 0;
+  }
+
+  /**
+   * Converts the intervals to {@code TimeRange}s, in buffer order.
+   */
+  List<TimeRange> toTimeRanges() {
+    List<TimeRange> ranges = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      ranges.add(TimeRange.fromStartEnd(starts[i], ends[i], false));
+    }
+    return ranges;
+  }
+
+  // Three-way quicksort, which stays fast on calendars where many meetings share a start time.
+  // The smaller side is sorted recursively and the larger one iteratively to bound stack depth.
+  private void sort(int low, int high) {
+    while (high - low >= INSERTION_SORT_THRESHOLD) {
+      swap(low, medianOfThree(low, low + (high - low) / 2, high));
+      int pivotStart = starts[low];
+      int pivotEnd = ends[low];
+      int lessThan = low;
+      int greaterThan = high;
+      int i = low + 1;
+      while (i <= greaterThan) {
+        int cmp = compare(i, pivotStart, pivotEnd);
+        if (cmp < 0) {
+          swap(lessThan++, i++);
+        } else if (cmp > 0) {
+          swap(i, greaterThan--);
+        } else {
+          i++;
+        }
+      }
+      if (lessThan - low < high - greaterThan) {
+        sort(low, lessThan - 1);
+        low = greaterThan + 1;
+      } else {
+        sort(greaterThan + 1, high);
+        high = lessThan - 1;
+      }
+    }
+    insertionSort(low, high);
+  }
+
+  private void insertionSort(int low, int high) {
+    for (int i = low + 1; i <= high; i++) {
+      int start = starts[i];
+      int end = ends[i];
+      int j = i - 1;
+      while (j >= low && compare(j, start, end) > 0) {
+        starts[j + 1] = starts[j];
+        ends[j + 1] = ends[j];
+        j--;
+      }
+      starts[j + 1] = start;
+      ends[j + 1] = end;
+    }
+  }
+
+  private int medianOfThree(int a, int b, int c) {
+    if (compare(a, starts[b], ends[b]) < 0) {
+      if (compare(b, starts[c], ends[c]) < 0) {
+        return b;
+      }
+      return compare(a, starts[c], ends[c]) < 0 ? c : a;
+    }
+    if (compare(a, starts[c], ends[c]) < 0) {
+      return a;
+    }
+    return compare(b, starts[c], ends[c]) < 0 ? c : b;
+  }
+
+  private int compare(int i, int start, int end) {
+    int cmp = Integer.compare(starts[i], start);
+    return cmp != 0 ? cmp : Integer.compare(ends[i], end);
+  }
+
+  private void swap(int i, int j) {
+    int start = starts[i];
+    int end = ends[i];
+    starts[i] = starts[j];
+    ends[i] = ends[j];
+    starts[j] = start;
+    ends[j] = end;
+  }
+}
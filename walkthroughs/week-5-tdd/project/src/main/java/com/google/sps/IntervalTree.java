@@ -0,0 +1,241 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Interval tree that maps {@code TimeRange}s to values and finds every entry overlapping a range
+ * or a point in O(log n + k) time, where k is the number of entries found.
+ *
+ * <p>The tree is an AVL tree ordered by start and then end time, in which every node also records
+ * the latest end time in its subtree. An overlap query skips any subtree that ends before the
+ * query starts, and any right subtree that starts after the query ends. Inserting and removing an
+ * entry cost O(log n). The same range can be added several times with different values.
+ *
+ * <p>A range with no duration is treated as the single minute it starts at, so that an empty
+ * event at 10:00 is found by a query for 10:00 to 11:00. The tree is not safe for concurrent
+ * modification.
+ *
+ * @param <T> the type of the values
+ */
+public final class IntervalTree<T> {
+  private Node<T> root;
+  private int size = 0;
+
+  /**
+   * Adds {@code value} for {@code range}.
+   */
+  public void add(TimeRange range, T value) {
+    if (range == null) {
+      throw new IllegalArgumentException("range cannot be null");
+    }
+
+    root = insert(root, new Node<>(range, value));
+    size++;
+  }
+
+  /**
+   * Removes one entry of {@code value} for {@code range}. Returns false if there is no such entry.
+   */
+  public boolean remove(TimeRange range, T value) {
+    int sizeBefore = size;
+    root = delete(root, range, value);
+    return size < sizeBefore;
+  }
+
+  /**
+   * Returns the number of entries.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the values of every entry that overlaps {@code range}, sorted by start time.
+   */
+  public List<T> findOverlapping(TimeRange range) {
+    List<T> values = new ArrayList<>();
+    forEachOverlapping(range, values::add);
+    return values;
+  }
+
+  /**
+   * Returns the values of every entry that contains {@code time}, sorted by start time.
+   */
+  public List<T> findContaining(int time) {
+    return findOverlapping(TimeRange.fromStartDuration(time, 1));
+  }
+
+  /**
+   * Hands the value of every entry that overlaps {@code range} to {@code action}, in order of
+   * start time.
+   */
+  public void forEachOverlapping(TimeRange range, Consumer<? super T> action) {
+    visitOverlapping(root, range.start(), effectiveEnd(range), action);
+  }
+
+  private static <T> void visitOverlapping(
+      Node<T> node, int start, int end, Consumer<? super T> action) {
+    // Every entry below this node ends by maxEnd, so none of them can reach the query.
+    while (node != null && node.maxEnd > start) {
+      visitOverlapping(node.left, start, end, action);
+      if (node.range.start() >= end) {
+        // Entries to the right start even later.
+        return;
+      }
+      if (effectiveEnd(node.range) > start) {
+        action.accept(node.value);
+      }
+      node = node.right;
+    }
+  }
+
+  private static int effectiveEnd(TimeRange range) {
+    return Math.max(range.end(), range.start() + 1);
+  }
+
+  private static int compare(TimeRange a, TimeRange b) {
+    int byStart = Integer.compare(a.start(), b.start());
+    return byStart != 0 ? byStart : Integer.compare(a.end(), b.end());
+  }
+
+  private Node<T> insert(Node<T> node, Node<T> added) {
+    if (node == null) {
+      return added;
+    }
+    // Equal ranges go to the right, so they stay in the order they were added.
+    if (compare(added.range, node.range) < 0) {
+      node.left = insert(node.left, added);
+    } else {
+      node.right = insert(node.right, added);
+    }
+    return rebalance(node);
+  }
+
+  private Node<T> delete(Node<T> node, TimeRange range, T value) {
+    if (node == null) {
+      return null;
+    }
+    int cmp = compare(range, node.range);
+    if (cmp < 0) {
+      node.left = delete(node.left, range, value);
+    } else if (cmp > 0) {
+      node.right = delete(node.right, range, value);
+    } else if (value == null ? node.value == null : value.equals(node.value)) {
+      size--;
+      if (node.left == null) {
+        return node.right;
+      }
+      if (node.right == null) {
+        return node.left;
+      }
+      // Replace the node by the first entry of its right subtree.
+      Node<T> successor = node.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      successor.right = removeFirst(node.right);
+      successor.left = node.left;
+      return rebalance(successor);
+    } else {
+      // Rotations can put equal ranges on either side.
+      int sizeBefore = size;
+      node.left = delete(node.left, range, value);
+      if (size == sizeBefore) {
+        node.right = delete(node.right, range, value);
+      }
+    }
+    return rebalance(node);
+  }
+
+  private Node<T> removeFirst(Node<T> node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    node.left = removeFirst(node.left);
+    return rebalance(node);
+  }
+
+  private Node<T> rebalance(Node<T> node) {
+    update(node);
+    int balance = height(node.left) - height(node.right);
+    if (balance > 1) {
+      if (height(node.left.left) < height(node.left.right)) {
+        node.left = rotateLeft(node.left);
+      }
+      return rotateRight(node);
+    }
+    if (balance < -1) {
+      if (height(node.right.right) < height(node.right.left)) {
+        node.right = rotateRight(node.right);
+      }
+      return rotateLeft(node);
+    }
+    return node;
+  }
+
+  private Node<T> rotateRight(Node<T> node) {
+    Node<T> pivot = node.left;
+    node.left = pivot.right;
+    pivot.right = node;
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+
+  private Node<T> rotateLeft(Node<T> node) {
+    Node<T> pivot = node.right;
+    node.right = pivot.left;
+    pivot.left = node;
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+
+  private static <T> void update(Node<T> node) {
+    node.height = 1 + Math.max(height(node.left), height(node.right));
+    int maxEnd = effectiveEnd(node.range);
+    if (node.left != null) {
+      maxEnd = Math.max(maxEnd, node.left.maxEnd);
+    }
+    if (node.right != null) {
+      maxEnd = Math.max(maxEnd, node.right.maxEnd);
+    }
+    node.maxEnd = maxEnd;
+  }
+
+  private static int height(Node<?> node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static final class Node<T> {
+    private final TimeRange range;
+    private final T value;
+    private Node<T> left;
+    private Node<T> right;
+    private int height = 1;
+    // The latest end of any range in this subtree.
+    private int maxEnd;
+
+    Node(TimeRange range, T value) {
+      this.range = range;
+      this.value = value;
+      this.maxEnd = effectiveEnd(range);
+    }
+  }
+}
@@ -0,0 +1,388 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only calendar in a file, laid out column by column like an {@link EventStore} and read
+ * through memory-mapped buffers. Opening a file only reads its header and attendee names; the
+ * event columns are paged in by the operating system as they are scanned, so even a calendar
+ * larger than the heap opens at once and is shared by every process that maps it.
+ *
+ * <p>The file holds, after a header of counts:
+ *
+ * <ul>
+ *   <li>the {@code int} start and duration of every event, sorted by start time;
+ *   <li>the sorted attendee ids of every event, all in one {@code int} column, and the offset at
+ *       which each event's ids begin;
+ *   <li>the id of every event's title in a pool of distinct titles;
+ *   <li>the title pool and the attendee names, each as UTF-8 bytes with an offset per string.
+ * </ul>
+ *
+ * <p>Each column is mapped on its own, so only a single column has to fit in the 2 GB a buffer can
+ * map. {@link FindMeetingQuery} scans the start, duration and attendee columns in place, without
+ * creating {@link Event} objects; since events are sorted by start time, only the events near the
+ * query window are visited. A store can be read by any number of threads.
+ */
+public final class MappedEventStore {
+  // "CAL" and the format version.
+  private static final int MAGIC = 0x43414C01;
+  private static final int HEADER_INTS = 8;
+
+  private final int size;
+  // The longest duration of any event, so a scan knows how early an overlapping event can start.
+  private final int maxDuration;
+  private final IntBuffer starts;
+  private final IntBuffer durations;
+  // The attendees of event i are attendeeIds[attendeeOffsets[i]] up to attendeeOffsets[i + 1].
+  private final IntBuffer attendeeOffsets;
+  private final IntBuffer attendeeIds;
+  private final IntBuffer titleIds;
+  private final StringPool titles;
+  private final AttendeeDictionary dictionary = new AttendeeDictionary();
+
+  private MappedEventStore(FileChannel channel) throws IOException {
+    ByteBuffer header = mapBytes(channel, 0, HEADER_INTS * 4);
+    if (header.getInt(0) != MAGIC) {
+      throw new IOException("Not an event file");
+    }
+    size = header.getInt(4);
+    int idCount = header.getInt(8);
+    int titleCount = header.getInt(12);
+    int titleBytes = header.getInt(16);
+    int nameCount = header.getInt(20);
+    int nameBytes = header.getInt(24);
+    maxDuration = header.getInt(28);
+
+    long position = HEADER_INTS * 4L;
+    starts = mapInts(channel, position, size);
+    position += size * 4L;
+    durations = mapInts(channel, position, size);
+    position += size * 4L;
+    attendeeOffsets = mapInts(channel, position, size + 1);
+    position += (size + 1) * 4L;
+    attendeeIds = mapInts(channel, position, idCount);
+    position += idCount * 4L;
+    titleIds = mapInts(channel, position, size);
+    position += size * 4L;
+    titles = new StringPool(mapInts(channel, position, titleCount + 1),
+        mapBytes(channel, position + (titleCount + 1) * 4L, titleBytes));
+    position += (titleCount + 1) * 4L + titleBytes;
+    StringPool names = new StringPool(mapInts(channel, position, nameCount + 1),
+        mapBytes(channel, position + (nameCount + 1) * 4L, nameBytes));
+    for (int id = 0; id < nameCount; id++) {
+      dictionary.idOf(names.get(id));
+    }
+  }
+
+  /**
+   * Opens a file written by {@link #write}. The mapping stays valid after the file is closed, so
+   * nothing has to be closed when the store is no longer used.
+   *
+   * @throws IOException if the file cannot be read or is not an event file
+   */
+  public static MappedEventStore open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new MappedEventStore(channel);
+    }
+  }
+
+  /**
+   * Writes {@code events} to {@code file}, replacing it if it exists, so that it can be opened with
+   * {@link #open}.
+   */
+  public static void write(Collection<Event> events, Path file) throws IOException {
+    List<Event> sorted = new ArrayList<>(events);
+    sorted.sort((a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+
+    AttendeeDictionary names = new AttendeeDictionary();
+    Map<String, Integer> titleIds = new HashMap<>();
+    List<String> titles = new ArrayList<>();
+    int idCount = 0;
+    int maxDuration = 0;
+    for (Event event : sorted) {
+      for (String attendee : event.getAttendees()) {
+        names.idOf(attendee);
+      }
+      idCount += event.getAttendees().size();
+      if (titleIds.putIfAbsent(event.getTitle(), titles.size()) == null) {
+        titles.add(event.getTitle());
+      }
+      maxDuration = Math.max(maxDuration, event.getWhen().duration());
+    }
+    byte[][] titleBytes = encode(titles);
+    List<String> nameList = new ArrayList<>(names.size());
+    for (int id = 0; id < names.size(); id++) {
+      nameList.add(names.name(id));
+    }
+    byte[][] nameBytes = encode(nameList);
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(sorted.size());
+      out.writeInt(idCount);
+      out.writeInt(titles.size());
+      out.writeInt(totalLength(titleBytes));
+      out.writeInt(nameList.size());
+      out.writeInt(totalLength(nameBytes));
+      out.writeInt(maxDuration);
+      for (Event event : sorted) {
+        out.writeInt(event.getWhen().start());
+      }
+      for (Event event : sorted) {
+        out.writeInt(event.getWhen().duration());
+      }
+      int offset = 0;
+      out.writeInt(offset);
+      for (Event event : sorted) {
+        offset += event.getAttendees().size();
+        out.writeInt(offset);
+      }
+      for (Event event : sorted) {
+        int[] ids = new int[event.getAttendees().size()];
+        int k = 0;
+        for (String attendee : event.getAttendees()) {
+          ids[k++] = names.find(attendee);
+        }
+        Arrays.sort(ids);
+        for (int id : ids) {
+          out.writeInt(id);
+        }
+      }
+      for (Event event : sorted) {
+        out.writeInt(titleIds.get(event.getTitle()));
+      }
+      writePool(out, titleBytes);
+      writePool(out, nameBytes);
+    }
+  }
+
+  /**
+   * Returns the number of events.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the event at position {@code i}, in order of start time.
+   */
+  public Event get(int i) {
+    return new Event(getTitle(i), getWhen(i), getAttendees(i));
+  }
+
+  /**
+   * Returns the title of the event at position {@code i}.
+   */
+  public String getTitle(int i) {
+    checkIndex(i);
+    return titles.get(titleIds.get(i));
+  }
+
+  /**
+   * Returns the time of the event at position {@code i}.
+   */
+  public TimeRange getWhen(int i) {
+    checkIndex(i);
+    return TimeRange.fromStartDuration(starts.get(i), durations.get(i));
+  }
+
+  /**
+   * Returns a read-only view of the attendees of the event at position {@code i}, ordered by id.
+   */
+  public List<String> getAttendees(int i) {
+    checkIndex(i);
+    int from = attendeeOffsets.get(i);
+    int to = attendeeOffsets.get(i + 1);
+    return new AbstractList<String>() {
+      @Override
+      public String get(int k) {
+        return dictionary.name(attendeeIds.get(from + k));
+      }
+
+      @Override
+      public int size() {
+        return to - from;
+      }
+    };
+  }
+
+  AttendeeDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * Adds the time of every event that overlaps {@code window} to {@code finder} if someone in
+   * {@code mandatory} or {@code optional} attends it, like
+   * {@link EventStore#addBusyTimes(long[], long[], TimeRange, BusySink)}. The bitsets are built
+   * with {@link #getDictionary()}. A scan of very many events runs in parallel.
+   */
+  void addBusyTimes(long[] mandatory, long[] optional, TimeRange window, BusySink finder) {
+    addBusyTimes(mandatory, optional, window, finder, ParallelBusyCollector.threshold());
+  }
+
+  /**
+   * Same as {@link #addBusyTimes(long[], long[], TimeRange, BusySink)}, but scans in parallel from
+   * {@code parallelThreshold} events on.
+   */
+  void addBusyTimes(
+      long[] mandatory, long[] optional, TimeRange window, BusySink finder, int parallelThreshold) {
+    // Events that start at or before this cannot reach into the window.
+    long tooEarly = (long) window.start() - maxDuration;
+    int first = firstStartAfter(tooEarly < Integer.MIN_VALUE ? Integer.MIN_VALUE : (int) tooEarly);
+    int last = firstStartAfter(window.end() - 1);
+    if (last - first >= parallelThreshold) {
+      ParallelBusyCollector.collect(last - first, (from, to, chunkSink) ->
+          scan(first + from, first + to, mandatory, optional, window, chunkSink), finder);
+      return;
+    }
+    scan(first, last, mandatory, optional, window, finder);
+  }
+
+  private void scan(
+      int from, int to, long[] mandatory, long[] optional, TimeRange window, BusySink finder) {
+    int windowStart = window.start();
+    for (int i = from; i < to; i++) {
+      int start = starts.get(i);
+      int end = start + durations.get(i);
+      if (end <= windowStart) {
+        continue;
+      }
+      // OR the attendees' bits together and test once, so the loop has no branch per attendee.
+      long mandatoryHit = 0;
+      long optionalHit = 0;
+      int idsEnd = attendeeOffsets.get(i + 1);
+      for (int k = attendeeOffsets.get(i); k < idsEnd; k++) {
+        int id = attendeeIds.get(k);
+        mandatoryHit |= mandatory[id >>> 6] >>> id;
+        optionalHit |= optional[id >>> 6] >>> id;
+      }
+      if ((mandatoryHit & 1) != 0) {
+        finder.addBusy(start, end, false);
+      } else if ((optionalHit & 1) != 0) {
+        finder.addBusy(start, end, true);
+      }
+    }
+  }
+
+  /**
+   * Returns the position of the first event that starts after {@code time}, or the number of
+   * events if there is none.
+   */
+  private int firstStartAfter(int time) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts.get(middle) <= time) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private void checkIndex(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("No event at " + i + " in a store of " + size);
+    }
+  }
+
+  private static IntBuffer mapInts(FileChannel channel, long position, int count)
+      throws IOException {
+    if (count < 0 || position + count * 4L > channel.size()) {
+      throw new IOException("Event file is truncated");
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, count * 4L).asIntBuffer();
+  }
+
+  private static ByteBuffer mapBytes(FileChannel channel, long position, int count)
+      throws IOException {
+    if (count < 0 || position + count > channel.size()) {
+      throw new IOException("Event file is truncated");
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, count);
+  }
+
+  private static byte[][] encode(List<String> strings) {
+    byte[][] bytes = new byte[strings.size()][];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+    }
+    return bytes;
+  }
+
+  private static int totalLength(byte[][] strings) {
+    int length = 0;
+    for (byte[] string : strings) {
+      length += string.length;
+    }
+    return length;
+  }
+
+  private static void writePool(DataOutputStream out, byte[][] strings) throws IOException {
+    int offset = 0;
+    out.writeInt(offset);
+    for (byte[] string : strings) {
+      offset += string.length;
+      out.writeInt(offset);
+    }
+    for (byte[] string : strings) {
+      out.write(string);
+    }
+  }
+
+  /**
+   * Strings stored as UTF-8 bytes, one after the other, with the offset at which each begins.
+   */
+  private static final class StringPool {
+    private final IntBuffer offsets;
+    private final ByteBuffer bytes;
+
+    StringPool(IntBuffer offsets, ByteBuffer bytes) {
+      this.offsets = offsets;
+      this.bytes = bytes;
+    }
+
+    String get(int i) {
+      int from = offsets.get(i);
+      byte[] string = new byte[offsets.get(i + 1) - from];
+      // Reading through a duplicate leaves the shared buffer's position alone.
+      ByteBuffer view = bytes.duplicate();
+      view.position(from);
+      view.get(string);
+      return new String(string, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -14,11 +14,14 @@
 
 package com.google.sps;
 
+import java.time.DateTimeException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 
 public final class MeetingRequest {
 
@@ -39,11 +42,51 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // Whether to return the slots that fit the most optional attendees instead of falling back to
+  // the mandatory attendees when no slot fits all of them.
+  private boolean maximize_optional_attendees = false;
+
+  // How many of the best slots to return, or 0 to return every slot unranked.
+  private int max_results = 0;
+
+  // How slots are ranked when max_results is set.
+  private SlotRanking ranking = SlotRanking.EARLIEST_START;
+
+  // The preferred start time in minutes, used by SlotRanking.CLOSEST_TO_PREFERRED_TIME.
+  private int preferred_time = 0;
+
+  // The time to search for slots in, or null to search the whole window given to the query.
+  private TimeRange search_window = null;
+
+  // Each attendee's working hours as minutes of their local day; attendees without an entry can
+  // meet at any time.
+  private Map<String, TimeRange> working_hours = new HashMap<>();
+
+  // Each attendee's time zone id, such as "Europe/Paris", in which their working hours are given;
+  // attendees without an entry are in UTC.
+  private Map<String, String> time_zones = new HashMap<>();
+
+  // How many people the meeting room must seat, or 0 to seat every attendee.
+  private int room_capacity = 0;
+
+  // Used by Gson, so that fields missing from the JSON keep their defaults instead of being null.
+  private MeetingRequest() {
+    this.duration = 0;
+  }
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
   }
 
+  /**
+   * Returns true if the request names its attendees and lasts a positive number of minutes. A
+   * request read from JSON may leave out the duration or set the attendee lists to null.
+   */
+  public boolean isValid() {
+    return attendees != null && optional_attendees != null && duration > 0;
+  }
+
   /**
    * Returns a read-only copy of the people who are required to attend this meeting.
    */
@@ -67,10 +110,177 @@ public final class MeetingRequest {
     }
   }
 
+  /**
+   * Returns true if the query should return the slots that the largest number of optional
+   * attendees can make, rather than requiring all or none of them.
+   */
+  public boolean shouldMaximizeOptionalAttendees() {
+    return maximize_optional_attendees;
+  }
+
+  /**
+   * Sets whether the query should return the slots that the largest number of optional attendees
+   * can make.
+   */
+  public void setMaximizeOptionalAttendees(boolean maximize) {
+    this.maximize_optional_attendees = maximize;
+  }
+
   /**
    * Returns the duration of the meeting in minutes.
    */
   public long getDuration() {
     return duration;
   }
+
+  /**
+   * Returns how many of the best slots the query should return, or 0 if it should return every
+   * slot without ranking them.
+   */
+  public int getMaxResults() {
+    return max_results;
+  }
+
+  /**
+   * Asks the query to return only the {@code maxResults} best slots, ranked by
+   * {@link #getRanking()}. 0 returns every slot unranked.
+   */
+  public void setMaxResults(int maxResults) {
+    if (maxResults < 0) {
+      throw new IllegalArgumentException("maxResults cannot be negative");
+    }
+    this.max_results = maxResults;
+  }
+
+  /**
+   * Returns how slots are ranked when {@link #getMaxResults()} is set.
+   */
+  public SlotRanking getRanking() {
+    // Gson leaves the field null if the JSON names a ranking that does not exist.
+    return ranking == null ? SlotRanking.EARLIEST_START : ranking;
+  }
+
+  public void setRanking(SlotRanking ranking) {
+    if (ranking == null) {
+      throw new IllegalArgumentException("ranking cannot be null");
+    }
+    this.ranking = ranking;
+  }
+
+  /**
+   * Returns the preferred start time of the meeting in minutes.
+   */
+  public int getPreferredTime() {
+    return preferred_time;
+  }
+
+  public void setPreferredTime(int preferredTime) {
+    this.preferred_time = preferredTime;
+  }
+
+  /**
+   * Returns the time to search for slots in, or null if the whole window given to the query is
+   * searched.
+   */
+  public TimeRange getSearchWindow() {
+    return search_window;
+  }
+
+  /**
+   * Limits the search to {@code searchWindow}, which is intersected with the window given to the
+   * query. Null searches the whole window given to the query.
+   */
+  public void setSearchWindow(TimeRange searchWindow) {
+    this.search_window = searchWindow;
+  }
+
+  /**
+   * Returns a read-only map from attendees to their working hours. Attendees who are not in the
+   * map can meet at any time.
+   */
+  public Map<String, TimeRange> getWorkingHours() {
+    // Gson sets the field to null if the JSON has "working_hours": null.
+    return working_hours == null
+        ? Collections.emptyMap()
+        : Collections.unmodifiableMap(working_hours);
+  }
+
+  /**
+   * Makes {@code attendee} available only during {@code hours} on every day of the search, for
+   * example 9:00 to 17:00, in the attendee's {@linkplain #getTimeZone time zone}. Hours that run
+   * past midnight continue on the next day.
+   *
+   * @param attendee The mandatory or optional attendee. Must be non-null.
+   * @param hours The working hours in minutes of the day. Must be non-null, start within the day,
+   *     and last between one minute and a whole day.
+   */
+  public void setWorkingHours(String attendee, TimeRange hours) {
+    if (attendee == null) {
+      throw new IllegalArgumentException("attendee cannot be null");
+    }
+
+    if (hours == null) {
+      throw new IllegalArgumentException("hours cannot be null");
+    }
+
+    if (hours.start() < 0 || hours.start() >= TimeRange.MINUTES_PER_DAY || hours.duration() <= 0
+        || hours.duration() > TimeRange.MINUTES_PER_DAY) {
+      throw new IllegalArgumentException("hours must start within the day and last at most a day");
+    }
+
+    if (working_hours == null) {
+      working_hours = new HashMap<>();
+    }
+    working_hours.put(attendee, hours);
+  }
+
+  /**
+   * Returns the id of the time zone of {@code attendee}'s working hours, or null for UTC.
+   */
+  public String getTimeZone(String attendee) {
+    return time_zones == null ? null : time_zones.get(attendee);
+  }
+
+  /**
+   * Sets the time zone in which {@code attendee}'s working hours are given.
+   *
+   * @param attendee The mandatory or optional attendee. Must be non-null.
+   * @param zoneId A time zone id such as "Europe/Paris". Must be a known zone.
+   */
+  public void setTimeZone(String attendee, String zoneId) {
+    if (attendee == null) {
+      throw new IllegalArgumentException("attendee cannot be null");
+    }
+
+    try {
+      ZoneOffsets.of(zoneId);
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Unknown time zone " + zoneId, e);
+    }
+    if (time_zones == null) {
+      time_zones = new HashMap<>();
+    }
+    time_zones.put(attendee, zoneId);
+  }
+
+  /**
+   * Returns how many people the meeting room must seat: the capacity set on the request, or else
+   * the number of mandatory and optional attendees.
+   */
+  public int getRoomCapacity() {
+    if (room_capacity > 0) {
+      return room_capacity;
+    }
+    return Math.max(1, attendees.size() + optional_attendees.size());
+  }
+
+  /**
+   * Sets how many people the meeting room must seat. 0 seats every attendee.
+   */
+  public void setRoomCapacity(int roomCapacity) {
+    if (roomCapacity < 0) {
+      throw new IllegalArgumentException("roomCapacity cannot be negative");
+    }
+    this.room_capacity = roomCapacity;
+  }
 }
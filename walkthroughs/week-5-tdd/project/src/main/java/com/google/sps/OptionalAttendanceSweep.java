@@ -0,0 +1,208 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * Counting sweep that finds the slots where the mandatory attendees are free and the largest
+ * possible number of optional attendees can come.
+ *
+ * <p>The sweep works on meeting start times rather than on minutes of the day. An optional
+ * attendee who is busy during {@code [a, b)} misses every meeting that starts in
+ * {@code (a - duration, b)}, so widening each busy interval by the meeting duration turns "free for
+ * the whole meeting" into a property of a single start time. Sweeping the widened intervals then
+ * counts, for every start time, how many optional attendees would miss the meeting. The cost is
+ * O(n log n) in the number of busy intervals, no matter how many optional attendees there are.
+ *
+ * <p>Busy intervals are added through {@link BusySink}. Optional ones belong to the attendee
+ * being added, whose intervals are merged once {@link #finishOptionalAttendee()} is called.
+ */
+final class OptionalAttendanceSweep implements BusySink {
+  // Each change in the count is packed into a long: the start time in the high bits and one bit
+  // telling whether an attendee starts or stops missing the meeting there.
+  private static final long BLOCK_FLAG = 1;
+
+  private final IntervalBuffer mandatoryBusy = new IntervalBuffer();
+  private final IntervalBuffer attendeeBusy = new IntervalBuffer();
+  private final IntervalBuffer feasibleStarts = new IntervalBuffer();
+  private final IntervalBuffer slots = new IntervalBuffer();
+  private long[] changes = new long[32];
+  private int changeCount = 0;
+  private int windowStart;
+  private int windowEnd;
+  private int duration;
+  private int missingAttendees;
+  private int best;
+  // Keeps the slots with the fewest missing attendees, for run().
+  private final SlotConsumer keepBest = (start, end, missing) -> {
+    if (missing < best) {
+      best = missing;
+      slots.clear();
+    }
+    if (missing == best) {
+      slots.add(start, end);
+    }
+  };
+
+  /**
+   * Prepares the sweep for a meeting of {@code duration} minutes inside
+   * {@code [windowStart, windowEnd)}.
+   */
+  void reset(int windowStart, int windowEnd, long duration) {
+    this.windowStart = windowStart;
+    this.windowEnd = windowEnd;
+    // A meeting needs at least one minute to take place, just like in the regular query.
+    this.duration = (int) Math.max(1, duration);
+    mandatoryBusy.clear();
+    attendeeBusy.clear();
+    changeCount = 0;
+  }
+
+  /**
+   * Adds a busy interval of a mandatory attendee, or of the optional attendee being added.
+   */
+  @Override
+  public void addBusy(int start, int end, boolean optional) {
+    if (!optional) {
+      mandatoryBusy.add(start, end);
+    } else if (end > start) {
+      attendeeBusy.add(start - duration + 1, end);
+    }
+  }
+
+  /**
+   * Counts the optional busy intervals added since the last call as the times one more optional
+   * attendee is busy. Must be called exactly once per optional attendee, even one who is never
+   * busy.
+   */
+  void finishOptionalAttendee() {
+    // Input that is already merged, such as an index's, only widens into a sorted buffer.
+    attendeeBusy.sort();
+    attendeeBusy.coalesce();
+    for (int i = 0; i < attendeeBusy.size(); i++) {
+      addChange(attendeeBusy.start(i), true);
+      addChange(attendeeBusy.end(i), false);
+    }
+    attendeeBusy.clear();
+  }
+
+  /**
+   * Runs the sweep and returns the best slots. Meetings of the requested duration fit anywhere
+   * inside each returned slot, and every such meeting is missed by exactly
+   * {@link #getMissingAttendees()} optional attendees. Slots are sorted by start time, and may
+   * overlap when two runs of equally good start times are close together. The buffer is owned by
+   * this sweep and is overwritten by the next run.
+   */
+  IntervalBuffer run() {
+    slots.clear();
+    best = Integer.MAX_VALUE;
+    runAll(keepBest);
+    missingAttendees = best == Integer.MAX_VALUE ? 0 : best;
+    return slots;
+  }
+
+  /**
+   * Runs the sweep and hands every slot the mandatory attendees can make to {@code consumer}, in
+   * order of start time. Each slot is a maximal run of start times that the same number of
+   * optional attendees would miss, so neighbouring slots overlap by up to the meeting duration.
+   */
+  void runAll(SlotConsumer consumer) {
+    collectFeasibleStarts();
+    Arrays.sort(changes, 0, changeCount);
+
+    int missing = 0;
+    int next = 0;
+    // The pending run of start times with the same count, which is only handed out once it cannot
+    // grow any more.
+    int runStart = 0;
+    int runEnd = 0;
+    int runMissing = -1;
+    for (int f = 0; f < feasibleStarts.size(); f++) {
+      int time = feasibleStarts.start(f);
+      int feasibleEnd = feasibleStarts.end(f);
+      while (time < feasibleEnd) {
+        while (next < changeCount && (int) (changes[next] >> 1) <= time) {
+          missing += (changes[next] & BLOCK_FLAG) != 0 ? 1 : -1;
+          next++;
+        }
+        int pieceEnd = feasibleEnd;
+        if (next < changeCount) {
+          pieceEnd = Math.min(pieceEnd, (int) (changes[next] >> 1));
+        }
+
+        if (missing != runMissing || runEnd != time) {
+          flushRun(consumer, runStart, runEnd, runMissing);
+          runStart = time;
+          runMissing = missing;
+        }
+        runEnd = pieceEnd;
+        time = pieceEnd;
+      }
+    }
+    flushRun(consumer, runStart, runEnd, runMissing);
+  }
+
+  /**
+   * Returns how many optional attendees miss each meeting in the slots of the last run.
+   */
+  int getMissingAttendees() {
+    return missingAttendees;
+  }
+
+  /**
+   * Turns the gaps between mandatory busy intervals into the ranges of start times at which a
+   * whole meeting fits.
+   */
+  private void collectFeasibleStarts() {
+    mandatoryBusy.sort();
+    mandatoryBusy.coalesce();
+    feasibleStarts.clear();
+    int freeFrom = windowStart;
+    for (int i = 0; i < mandatoryBusy.size() && mandatoryBusy.start(i) < windowEnd; i++) {
+      addFeasibleStarts(freeFrom, mandatoryBusy.start(i));
+      freeFrom = Math.max(freeFrom, mandatoryBusy.end(i));
+    }
+    addFeasibleStarts(freeFrom, windowEnd);
+  }
+
+  private void addFeasibleStarts(int freeFrom, int freeUntil) {
+    feasibleStarts.add(freeFrom, freeUntil - duration + 1);
+  }
+
+  private void flushRun(SlotConsumer consumer, int runStart, int runEnd, int runMissing) {
+    if (runMissing >= 0) {
+      consumer.accept(runStart, runEnd - 1 + duration, runMissing);
+    }
+  }
+
+  private void addChange(int time, boolean blocks) {
+    if (changeCount == changes.length) {
+      changes = Arrays.copyOf(changes, changeCount * 2);
+    }
+    changes[changeCount++] = ((long) time << 1) | (blocks ? BLOCK_FLAG : 0);
+  }
+
+  /**
+   * Receives the slots found by {@link #runAll}.
+   */
+  interface SlotConsumer {
+    /**
+     * Accepts the slot {@code [start, end)}, in which every meeting is missed by
+     * {@code missingAttendees} optional attendees.
+     */
+    void accept(int start, int end, int missingAttendees);
+  }
+}
@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Collects the busy intervals of a very large calendar on the common fork-join pool. The events
+ * are split into chunks of consecutive positions, and each chunk is filtered into its own pair of
+ * buffers, which are then sorted and coalesced in parallel. The sorted runs are finally merged
+ * with a k-way merge and handed to the sink in order, so the sink never sorts them again.
+ *
+ * <p>Splitting and merging have a fixed cost, so callers only use this from {@link #threshold()}
+ * events on.
+ */
+final class ParallelBusyCollector {
+  // Below this many events a serial scan is faster. ParallelBusyCollectorBenchmark in
+  // ../benchmarks measures the crossover.
+  static final int PARALLEL_THRESHOLD = 100_000;
+  // More chunks than threads, so that a chunk with many matches does not hold up the rest.
+  private static final int CHUNKS_PER_THREAD = 4;
+  private static final int MIN_CHUNK_SIZE = 4096;
+
+  /**
+   * Adds the busy intervals of the events at positions {@code [from, to)} to a sink. Called
+   * concurrently for disjoint ranges, so it must only read shared state.
+   */
+  interface ChunkScanner {
+    void scan(int from, int to, BusySink sink);
+  }
+
+  private ParallelBusyCollector() {}
+
+  /**
+   * Returns the number of events from which collecting in parallel pays off. With a single
+   * thread in the common pool it never does.
+   */
+  static int threshold() {
+    return ForkJoinPool.getCommonPoolParallelism() > 1 ? PARALLEL_THRESHOLD : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Scans positions {@code [0, size)} in parallel chunks and adds the busy intervals found to
+   * {@code sink} sorted by start time, mandatory intervals first.
+   */
+  static void collect(int size, ChunkScanner scanner, BusySink sink) {
+    int threads = Runtime.getRuntime().availableProcessors();
+    int chunkCount = Math.max(1, Math.min(threads * CHUNKS_PER_THREAD, size / MIN_CHUNK_SIZE));
+    IntervalBuffer[] mandatoryRuns = new IntervalBuffer[chunkCount];
+    IntervalBuffer[] optionalRuns = new IntervalBuffer[chunkCount];
+    IntStream.range(0, chunkCount).parallel().forEach(chunk -> {
+      IntervalBuffer mandatory = new IntervalBuffer();
+      IntervalBuffer optional = new IntervalBuffer();
+      int from = (int) ((long) size * chunk / chunkCount);
+      int to = (int) ((long) size * (chunk + 1) / chunkCount);
+      scanner.scan(from, to, (start, end, isOptional) ->
+          (isOptional ? optional : mandatory).add(start, end));
+      mandatory.sort();
+      mandatory.coalesce();
+      optional.sort();
+      optional.coalesce();
+      mandatoryRuns[chunk] = mandatory;
+      optionalRuns[chunk] = optional;
+    });
+    IntervalBuffer.mergeSorted(mandatoryRuns, false, sink);
+    IntervalBuffer.mergeSorted(optionalRuns, true, sink);
+  }
+}
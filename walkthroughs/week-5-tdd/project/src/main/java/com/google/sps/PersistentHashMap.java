@@ -0,0 +1,263 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map whose updates return a new map that shares all but O(log n) of its nodes with
+ * the old one. The map is a hash array mapped trie: each node covers five more bits of the key's
+ * hash and holds only the slots that are in use, with a bitmap telling which. Adding, replacing or
+ * removing a key copies the nodes on the path to it, at most seven, and nothing else, so old
+ * versions stay valid and can be read by any number of threads while new ones are made.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+final class PersistentHashMap<K, V> {
+  private static final int BITS_PER_LEVEL = 5;
+  private static final Node EMPTY_NODE = new Node(0, new Object[0]);
+  private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(EMPTY_NODE, 0);
+
+  private final Node root;
+  private final int size;
+
+  private PersistentHashMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Returns the empty map.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Returns the number of keys.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the value of {@code key}, or null if the map does not contain it.
+   */
+  @SuppressWarnings("unchecked")
+  V get(K key) {
+    Entry entry = find(root, key, hash(key), 0);
+    return entry == null ? null : (V) entry.value;
+  }
+
+  /**
+   * Returns true if the map contains {@code key}.
+   */
+  boolean containsKey(K key) {
+    return find(root, key, hash(key), 0) != null;
+  }
+
+  /**
+   * Returns a map with {@code key} mapped to {@code value}, and every other key as in this map.
+   */
+  PersistentHashMap<K, V> with(K key, V value) {
+    int hash = hash(key);
+    boolean replaced = find(root, key, hash, 0) != null;
+    return new PersistentHashMap<>(
+        put(root, new Entry(key, value, hash), 0), replaced ? size : size + 1);
+  }
+
+  /**
+   * Returns a map without {@code key}, or this map if it does not contain the key.
+   */
+  PersistentHashMap<K, V> without(K key) {
+    int hash = hash(key);
+    if (find(root, key, hash, 0) == null) {
+      return this;
+    }
+    Node newRoot = remove(root, key, hash, 0);
+    return new PersistentHashMap<>(newRoot == null ? EMPTY_NODE : newRoot, size - 1);
+  }
+
+  /**
+   * Hands every key and its value to {@code action}, in no particular order.
+   */
+  @SuppressWarnings("unchecked")
+  void forEach(BiConsumer<? super K, ? super V> action) {
+    forEach(root, (BiConsumer<Object, Object>) action);
+  }
+
+  private static void forEach(Node node, BiConsumer<Object, Object> action) {
+    for (Object slot : node.slots) {
+      if (slot instanceof Entry) {
+        action.accept(((Entry) slot).key, ((Entry) slot).value);
+      } else {
+        forEach((Node) slot, action);
+      }
+    }
+  }
+
+  private static int hash(Object key) {
+    int hash = key.hashCode();
+    return hash ^ (hash >>> 16);
+  }
+
+  private static Entry find(Node node, Object key, int hash, int shift) {
+    while (true) {
+      if (shift >= Integer.SIZE) {
+        // Every bit of the hash is used up; the node lists entries with the same hash.
+        for (Object slot : node.slots) {
+          if (((Entry) slot).key.equals(key)) {
+            return (Entry) slot;
+          }
+        }
+        return null;
+      }
+      int bit = bit(hash, shift);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      Object slot = node.slots[node.index(bit)];
+      if (slot instanceof Entry) {
+        return ((Entry) slot).key.equals(key) ? (Entry) slot : null;
+      }
+      node = (Node) slot;
+      shift += BITS_PER_LEVEL;
+    }
+  }
+
+  private static Node put(Node node, Entry entry, int shift) {
+    if (shift >= Integer.SIZE) {
+      for (int i = 0; i < node.slots.length; i++) {
+        if (((Entry) node.slots[i]).key.equals(entry.key)) {
+          return node.withSlot(i, entry);
+        }
+      }
+      return new Node(0, append(node.slots, entry));
+    }
+    int bit = bit(entry.hash, shift);
+    int index = node.index(bit);
+    if ((node.bitmap & bit) == 0) {
+      return node.withInsertedSlot(bit, index, entry);
+    }
+    Object slot = node.slots[index];
+    if (slot instanceof Node) {
+      return node.withSlot(index, put((Node) slot, entry, shift + BITS_PER_LEVEL));
+    }
+    Entry existing = (Entry) slot;
+    if (existing.key.equals(entry.key)) {
+      return node.withSlot(index, entry);
+    }
+    // Two keys share this slot, so push both one level down.
+    Node child = put(put(EMPTY_NODE, existing, shift + BITS_PER_LEVEL), entry,
+        shift + BITS_PER_LEVEL);
+    return node.withSlot(index, child);
+  }
+
+  /**
+   * Returns the node without {@code key}, which it must contain, or null if nothing is left.
+   */
+  private static Node remove(Node node, Object key, int hash, int shift) {
+    int index;
+    int bit = 0;
+    if (shift >= Integer.SIZE) {
+      index = 0;
+      while (!((Entry) node.slots[index]).key.equals(key)) {
+        index++;
+      }
+    } else {
+      bit = bit(hash, shift);
+      index = node.index(bit);
+      Object slot = node.slots[index];
+      if (slot instanceof Node) {
+        Node child = remove((Node) slot, key, hash, shift + BITS_PER_LEVEL);
+        if (child != null) {
+          // A child left with a single entry is folded back into this node.
+          return node.withSlot(
+              index, child.slots.length == 1 && child.slots[0] instanceof Entry
+                  ? child.slots[0]
+                  : child);
+        }
+      }
+    }
+    if (node.slots.length == 1) {
+      return null;
+    }
+    return node.withoutSlot(bit, index);
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & ((1 << BITS_PER_LEVEL) - 1));
+  }
+
+  private static Object[] append(Object[] slots, Object slot) {
+    Object[] copy = Arrays.copyOf(slots, slots.length + 1);
+    copy[slots.length] = slot;
+    return copy;
+  }
+
+  private static final class Entry {
+    private final Object key;
+    private final Object value;
+    private final int hash;
+
+    Entry(Object key, Object value, int hash) {
+      this.key = key;
+      this.value = value;
+      this.hash = hash;
+    }
+  }
+
+  /**
+   * A level of the trie. Each slot holds an {@link Entry} or a child node, in the order of the
+   * bits set in the bitmap. Below the last level the bitmap is unused and the slots are entries.
+   */
+  private static final class Node {
+    private final int bitmap;
+    private final Object[] slots;
+
+    Node(int bitmap, Object[] slots) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+    }
+
+    int index(int bit) {
+      return Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    Node withSlot(int index, Object slot) {
+      Object[] copy = slots.clone();
+      copy[index] = slot;
+      return new Node(bitmap, copy);
+    }
+
+    Node withInsertedSlot(int bit, int index, Object slot) {
+      Object[] copy = new Object[slots.length + 1];
+      System.arraycopy(slots, 0, copy, 0, index);
+      copy[index] = slot;
+      System.arraycopy(slots, index, copy, index + 1, slots.length - index);
+      return new Node(bitmap | bit, copy);
+    }
+
+    Node withoutSlot(int bit, int index) {
+      Object[] copy = new Object[slots.length - 1];
+      System.arraycopy(slots, 0, copy, 0, index);
+      System.arraycopy(slots, index + 1, copy, index, slots.length - index - 1);
+      return new Node(bitmap & ~bit, copy);
+    }
+  }
+}
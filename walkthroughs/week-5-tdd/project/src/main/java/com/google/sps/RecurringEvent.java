@@ -0,0 +1,210 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An event that repeats every few days, such as a daily stand-up or a weekly review. Occurrences
+ * are never stored: they are computed on demand for the window being looked at, so a recurrence
+ * that runs forever costs as little memory as one that happens twice.
+ *
+ * <p>The first occurrence is given in wall-clock minutes of the event's time zone, and every
+ * occurrence happens at the same wall-clock time, so a 9:00 stand-up stays at 9:00 across
+ * daylight saving time changes. Occurrences are returned on the UTC timeline. Like {@link Event},
+ * recurring events are read-only.
+ */
+public final class RecurringEvent {
+  /** Repeat every day. */
+  public static final int DAILY = 1;
+  /** Repeat every week. */
+  public static final int WEEKLY = 7;
+
+  private final String title;
+  private final TimeRange first;
+  private final int intervalDays;
+  private final Set<String> attendees = new HashSet<>();
+  private final String zoneId;
+  private final ZoneOffsets zone;
+  private final int until;
+  // Local start times of the skipped occurrences, sorted.
+  private final int[] exceptions;
+
+  /**
+   * Creates an event that repeats forever, in UTC.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param first The first occurrence. Must be non-null.
+   * @param intervalDays The number of days between occurrences, such as {@link #DAILY} or
+   *     {@link #WEEKLY}. Must be positive.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   */
+  public RecurringEvent(
+      String title, TimeRange first, int intervalDays, Collection<String> attendees) {
+    this(title, first, intervalDays, attendees, null, Integer.MAX_VALUE, Collections.emptySet());
+  }
+
+  /**
+   * Creates a recurring event.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param first The first occurrence, in wall-clock minutes of {@code zoneId}. Must be non-null.
+   * @param intervalDays The number of days between occurrences, such as {@link #DAILY} or
+   *     {@link #WEEKLY}. Must be positive.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   * @param zoneId The time zone of the event, such as "Europe/Paris", or null for UTC.
+   * @param until The UTC minute from which no more occurrences start.
+   * @param exceptions The wall-clock start times of occurrences that do not take place. Must be
+   *     non-null.
+   */
+  public RecurringEvent(String title, TimeRange first, int intervalDays,
+      Collection<String> attendees, String zoneId, int until, Collection<Integer> exceptions) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (first == null) {
+      throw new IllegalArgumentException("first cannot be null");
+    }
+
+    if (intervalDays <= 0) {
+      throw new IllegalArgumentException("intervalDays must be positive");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    if (exceptions == null) {
+      throw new IllegalArgumentException("exceptions cannot be null. Use empty array instead.");
+    }
+
+    this.title = title;
+    this.first = first;
+    this.intervalDays = intervalDays;
+    this.attendees.addAll(attendees);
+    this.zoneId = zoneId;
+    this.zone = ZoneOffsets.of(zoneId);
+    this.until = until;
+    this.exceptions = exceptions.stream().mapToInt(Integer::intValue).sorted().toArray();
+  }
+
+  /**
+   * Returns the human-readable name for this event.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns the first occurrence, in wall-clock minutes of the event's time zone.
+   */
+  public TimeRange getFirst() {
+    return first;
+  }
+
+  /**
+   * Returns the number of days between occurrences.
+   */
+  public int getIntervalDays() {
+    return intervalDays;
+  }
+
+  /**
+   * Returns a read-only set of required attendees for this event.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(attendees);
+  }
+
+  /**
+   * Returns the id of the event's time zone, or null for UTC.
+   */
+  public String getZoneId() {
+    return zoneId;
+  }
+
+  /**
+   * Returns the UTC minute from which no more occurrences start.
+   */
+  public int getUntil() {
+    return until;
+  }
+
+  /**
+   * Returns the occurrences that overlap {@code window}, on the UTC timeline and sorted by start
+   * time.
+   */
+  public List<TimeRange> getOccurrences(TimeRange window) {
+    List<TimeRange> occurrences = new ArrayList<>();
+    addOccurrences(window, (start, end, optional) ->
+        occurrences.add(TimeRange.fromStartEnd(start, end, false)), false);
+    return occurrences;
+  }
+
+  /**
+   * Hands the occurrences that overlap {@code window} to {@code sink}, tagged as
+   * {@code optional}, without allocating. Only the occurrences near the window are visited, no
+   * matter how long the event has been repeating.
+   */
+  void addOccurrences(TimeRange window, BusySink sink, boolean optional) {
+    long period = (long) intervalDays * TimeRange.MINUTES_PER_DAY;
+    int duration = first.duration();
+    // Time zones are less than a day off UTC, so starting a day early and stopping a day late
+    // cannot miss an occurrence.
+    long earliest = (long) window.start() - duration - TimeRange.MINUTES_PER_DAY - first.start();
+    long k = Math.max(0, Math.floorDiv(earliest, period));
+    long lastLocalStart = (long) window.end() + TimeRange.MINUTES_PER_DAY;
+    for (long localStart = first.start() + k * period; localStart < lastLocalStart;
+        localStart += period) {
+      if (localStart > Integer.MAX_VALUE) {
+        return;
+      }
+      int start = zone.toUtc((int) localStart);
+      if (start >= until) {
+        return;
+      }
+      int end = start + duration;
+      if (start < window.end() && end > window.start()
+          && Arrays.binarySearch(exceptions, (int) localStart) < 0) {
+        sink.addBusy(start, end, optional);
+      }
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return title.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof RecurringEvent)) {
+      return false;
+    }
+    RecurringEvent that = (RecurringEvent) other;
+    return title.equals(that.title) && first.equals(that.first)
+        && intervalDays == that.intervalDays && attendees.equals(that.attendees)
+        && Objects.equals(zoneId, that.zoneId)
+        && until == that.until && Arrays.equals(exceptions, that.exceptions);
+  }
+}
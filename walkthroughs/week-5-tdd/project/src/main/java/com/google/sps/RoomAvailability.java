@@ -0,0 +1,133 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The free time of a group of rooms, reduced to the intervals that no other interval contains. The
+ * intervals are sorted by start time, and therefore by end time as well, so the ones near a slot
+ * are found with a binary search and walked in step with the slots.
+ */
+final class RoomAvailability {
+  // Ties in start time keep the longest interval, then the smallest room, so that big rooms stay
+  // free for big meetings.
+  private static final Comparator<FreeInterval> ORDER =
+      Comparator.<FreeInterval>comparingInt(interval -> interval.start)
+          .thenComparing(Comparator.<FreeInterval>comparingInt(interval -> interval.end).reversed())
+          .thenComparingInt(interval -> interval.room.getCapacity());
+
+  private final int[] starts;
+  private final int[] ends;
+  private final Room[] rooms;
+
+  private RoomAvailability(int[] starts, int[] ends, Room[] rooms) {
+    this.starts = starts;
+    this.ends = ends;
+    this.rooms = rooms;
+  }
+
+  /**
+   * Reduces {@code free} to its maximal intervals. The list is sorted in place.
+   */
+  static RoomAvailability build(List<FreeInterval> free) {
+    free.sort(ORDER);
+    int[] starts = new int[free.size()];
+    int[] ends = new int[free.size()];
+    Room[] rooms = new Room[free.size()];
+    int size = 0;
+    for (FreeInterval interval : free) {
+      // Sorted by start, an interval is contained in an earlier one exactly when it ends no later
+      // than the last one kept.
+      if (size == 0 || interval.end > ends[size - 1]) {
+        starts[size] = interval.start;
+        ends[size] = interval.end;
+        rooms[size] = interval.room;
+        size++;
+      }
+    }
+    return new RoomAvailability(
+        Arrays.copyOf(starts, size), Arrays.copyOf(ends, size),
+        Arrays.copyOf(rooms, size));
+  }
+
+  int size() {
+    return starts.length;
+  }
+
+  /**
+   * Appends these intervals to {@code free}, so that they can be combined with others.
+   */
+  void addTo(List<FreeInterval> free) {
+    for (int i = 0; i < starts.length; i++) {
+      free.add(new FreeInterval(starts[i], ends[i], rooms[i]));
+    }
+  }
+
+  /**
+   * Appends to {@code out} every part of a slot in {@code slots} that lies inside one free
+   * interval and lasts at least {@code duration} minutes, with the interval's room. The slots must
+   * be sorted and disjoint; the room slots come out sorted by start time.
+   */
+  void addRoomSlots(IntervalBuffer slots, long duration, List<RoomSlot> out) {
+    if (slots.isEmpty()) {
+      return;
+    }
+    // The first interval that ends after the first slot starts.
+    int low = 0;
+    int high = starts.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ends[middle] <= slots.start(0)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    int s = 0;
+    int f = low;
+    while (s < slots.size() && f < starts.length) {
+      int start = Math.max(slots.start(s), starts[f]);
+      int end = Math.min(slots.end(s), ends[f]);
+      if (end - start > 0 && end - start >= duration) {
+        out.add(new RoomSlot(TimeRange.fromStartEnd(start, end, false), rooms[f]));
+      }
+      // Whichever ends first cannot overlap anything after the other.
+      if (ends[f] <= slots.end(s)) {
+        f++;
+      } else {
+        s++;
+      }
+    }
+  }
+
+  /**
+   * One free interval of one room.
+   */
+  static final class FreeInterval {
+    private final int start;
+    private final int end;
+    private final Room room;
+
+    FreeInterval(int start, int end, Room room) {
+      this.start = start;
+      this.end = end;
+      this.room = room;
+    }
+  }
+}
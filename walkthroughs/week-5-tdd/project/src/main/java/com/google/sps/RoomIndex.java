@@ -0,0 +1,188 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Meeting rooms and their bookings, indexed by capacity so that finding a free room does not cost
+ * more as rooms are added.
+ *
+ * <p>Rooms are grouped into capacity buckets by powers of two. For each bucket, the index keeps
+ * the free time of every room that seats at least the bucket's smallest capacity, reduced to its
+ * maximal intervals: a free interval that lies inside another room's free interval can never hold
+ * a meeting the other could not, so it is dropped. What is left is sorted by both start and end,
+ * and its size depends on how the rooms' free time interleaves rather than on how many rooms
+ * there are. The reduced free time is built on first use and dropped whenever a room or booking
+ * changes.
+ *
+ * <p>The index is not safe for concurrent modification. Reading from several threads is fine as
+ * long as nothing is changed at the same time.
+ */
+public final class RoomIndex {
+  // Free time is computed over this range, which is as wide as a TimeRange can be.
+  private static final TimeRange ALL_TIME =
+      TimeRange.fromStartEnd(Integer.MIN_VALUE / 2, Integer.MAX_VALUE / 2, false);
+
+  private final Map<String, Room> rooms = new LinkedHashMap<>();
+  private final EventIndex bookings = new EventIndex();
+  // Bucket b holds the rooms that seat from 2^b up to 2^(b + 1) - 1 people.
+  private final List<List<Room>> buckets = new ArrayList<>();
+  // The reduced free time of the rooms in bucket b and above, by b.
+  private final ConcurrentMap<Integer, RoomAvailability> availableFrom =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Adds a room, which is free until it is booked.
+   *
+   * @throws IllegalArgumentException if there already is a room with the same name
+   */
+  public void addRoom(Room room) {
+    if (room == null) {
+      throw new IllegalArgumentException("room cannot be null");
+    }
+
+    if (rooms.containsKey(room.getName())) {
+      throw new IllegalArgumentException("There already is a room named " + room.getName());
+    }
+
+    rooms.put(room.getName(), room);
+    int bucket = bucketOf(room.getCapacity());
+    while (buckets.size() <= bucket) {
+      buckets.add(new ArrayList<>());
+    }
+    buckets.get(bucket).add(room);
+    availableFrom.clear();
+  }
+
+  /**
+   * Returns a read-only view of the rooms, in the order they were added.
+   */
+  public Collection<Room> getRooms() {
+    return Collections.unmodifiableCollection(rooms.values());
+  }
+
+  /**
+   * Books {@code room} during {@code when}.
+   *
+   * @throws IllegalArgumentException if there is no room with that name
+   */
+  public void book(String room, TimeRange when) {
+    checkRoom(room);
+    bookings.add(when, Collections.singletonList(room));
+    availableFrom.clear();
+  }
+
+  /**
+   * Cancels one booking of {@code room} during {@code when}. Returns false, and changes nothing,
+   * if there is no such booking.
+   */
+  public boolean cancel(String room, TimeRange when) {
+    checkRoom(room);
+    boolean cancelled = bookings.remove(new Event(room, when, Collections.singletonList(room)));
+    if (cancelled) {
+      availableFrom.clear();
+    }
+    return cancelled;
+  }
+
+  /**
+   * Returns a read-only list of the times {@code room} is booked, merged into disjoint intervals
+   * and sorted by start time.
+   */
+  public List<TimeRange> getBookings(String room) {
+    checkRoom(room);
+    return Collections.unmodifiableList(
+        new ArrayList<>(bookings.getMergedBusyTimes(room, ALL_TIME)));
+  }
+
+  /**
+   * Returns the reduced free time of every room that seats at least {@code capacity} people.
+   */
+  RoomAvailability availability(int capacity) {
+    int bucket = bucketOf(Math.max(1, capacity));
+    if (bucket >= buckets.size()) {
+      return RoomAvailability.build(Collections.emptyList());
+    }
+    RoomAvailability above = availableFrom(bucket + 1);
+    if (capacity <= 1 << bucket) {
+      return availableFrom(bucket);
+    }
+    // Only some of the rooms in this bucket are big enough, so this part is not cached.
+    List<RoomAvailability.FreeInterval> free = new ArrayList<>();
+    for (Room room : buckets.get(bucket)) {
+      if (room.getCapacity() >= capacity) {
+        addFreeIntervals(room, free);
+      }
+    }
+    above.addTo(free);
+    return RoomAvailability.build(free);
+  }
+
+  private RoomAvailability availableFrom(int bucket) {
+    // Find the nearest bucket at or above this one whose free time is already known, then build
+    // the buckets below it from the top down, each from the one above.
+    RoomAvailability above = null;
+    int top = bucket;
+    while (top < buckets.size() && (above = availableFrom.get(top)) == null) {
+      top++;
+    }
+    if (above == null) {
+      above = RoomAvailability.build(Collections.emptyList());
+    }
+    for (int b = top - 1; b >= bucket; b--) {
+      List<RoomAvailability.FreeInterval> free = new ArrayList<>();
+      above.addTo(free);
+      for (Room room : buckets.get(b)) {
+        addFreeIntervals(room, free);
+      }
+      RoomAvailability built = RoomAvailability.build(free);
+      // Readers racing on the same bucket build the same free time; keep whichever came first.
+      RoomAvailability raced = availableFrom.putIfAbsent(b, built);
+      above = raced != null ? raced : built;
+    }
+    return above;
+  }
+
+  private void addFreeIntervals(Room room, List<RoomAvailability.FreeInterval> free) {
+    int freeFrom = ALL_TIME.start();
+    for (TimeRange booked : bookings.getMergedBusyTimes(room.getName(), ALL_TIME)) {
+      if (booked.start() > freeFrom) {
+        free.add(new RoomAvailability.FreeInterval(freeFrom, booked.start(), room));
+      }
+      freeFrom = booked.end();
+    }
+    if (freeFrom < ALL_TIME.end()) {
+      free.add(new RoomAvailability.FreeInterval(freeFrom, ALL_TIME.end(), room));
+    }
+  }
+
+  private void checkRoom(String room) {
+    if (!rooms.containsKey(room)) {
+      throw new IllegalArgumentException("There is no room named " + room);
+    }
+  }
+
+  private static int bucketOf(int capacity) {
+    return 31 - Integer.numberOfLeadingZeros(capacity);
+  }
+}
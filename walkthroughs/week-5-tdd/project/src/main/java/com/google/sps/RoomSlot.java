@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A time when a meeting can take place, and the room it can take place in. The room is free for
+ * the whole slot.
+ */
+public final class RoomSlot {
+  private final TimeRange when;
+  private final Room room;
+
+  /**
+   * Creates a new room slot.
+   *
+   * @param when The time when the people and the room are free. Must be non-null.
+   * @param room The room. Must be non-null.
+   */
+  public RoomSlot(TimeRange when, Room room) {
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    if (room == null) {
+      throw new IllegalArgumentException("room cannot be null");
+    }
+
+    this.when = when;
+    this.room = room;
+  }
+
+  /**
+   * Returns the time when the people and the room are free.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns the room.
+   */
+  public Room getRoom() {
+    return room;
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RoomSlot && when.equals(((RoomSlot) other).when)
+        && room.equals(((RoomSlot) other).room);
+  }
+
+  @Override
+  public String toString() {
+    return when + " in " + room;
+  }
+}
@@ -0,0 +1,33 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Engine that turns busy intervals into the free slots for the mandatory attendees and for all
+ * attendees. Engines are reusable: {@link #reset()} forgets everything added so far.
+ */
+interface SlotFinder extends BusySink {
+  /**
+   * Forgets all busy intervals so that the engine can be used for another query.
+   */
+  void reset();
+
+  /**
+   * Returns the free slots inside {@code [windowStart, windowEnd)} that are at least
+   * {@code duration} minutes long. The result is owned by the engine and is overwritten by the
+   * next call.
+   */
+  SlotSweep.Result run(int windowStart, int windowEnd, long duration);
+}
@@ -0,0 +1,49 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * The built-in ways of ranking meeting slots.
+ */
+public enum SlotRanking implements SlotScorer {
+  /** Prefers slots that start early in the window. */
+  EARLIEST_START {
+    @Override
+    public long score(MeetingRequest request, TimeRange slot, int missingOptionalAttendees) {
+      return slot.start();
+    }
+  },
+
+  /** Prefers slots where the meeting can start as close as possible to the preferred time. */
+  CLOSEST_TO_PREFERRED_TIME {
+    @Override
+    public long score(MeetingRequest request, TimeRange slot, int missingOptionalAttendees) {
+      long preferred = request.getPreferredTime();
+      long latestStart = slot.end() - Math.max(1, request.getDuration());
+      if (preferred < slot.start()) {
+        return slot.start() - preferred;
+      }
+      return Math.max(0, preferred - latestStart);
+    }
+  },
+
+  /** Prefers slots that the largest number of optional attendees can make. */
+  FEWEST_OPTIONAL_ATTENDEES_MISSING {
+    @Override
+    public long score(MeetingRequest request, TimeRange slot, int missingOptionalAttendees) {
+      return missingOptionalAttendees;
+    }
+  }
+}
@@ -0,0 +1,28 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Scores a candidate meeting slot for ranked queries. Lower scores are better; ties go to the
+ * slot that starts first.
+ */
+@FunctionalInterface
+public interface SlotScorer {
+  /**
+   * Returns the score of {@code slot}, a range inside which the requested meeting fits anywhere
+   * and is missed by {@code missingOptionalAttendees} optional attendees.
+   */
+  long score(MeetingRequest request, TimeRange slot, int missingOptionalAttendees);
+}
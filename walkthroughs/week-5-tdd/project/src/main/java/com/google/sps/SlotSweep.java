@@ -0,0 +1,111 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Sweep-line engine that finds free slots for the mandatory attendees and for all attendees
+ * (mandatory and optional) in a single pass. Busy intervals are kept in one primitive buffer per
+ * tag; each buffer is sorted and coalesced in place, and one merged walk over both produces the
+ * two answers. A sweep can be {@link #reset()} and reused, in which case a query allocates
+ * nothing until its results are converted to {@code TimeRange}s.
+ */
+final class SlotSweep implements SlotFinder {
+  private final IntervalBuffer mandatoryBusy = new IntervalBuffer();
+  private final IntervalBuffer optionalBusy = new IntervalBuffer();
+  private final Result result = new Result();
+
+  @Override
+  public void reset() {
+    mandatoryBusy.clear();
+    optionalBusy.clear();
+  }
+
+  @Override
+  public void addBusy(int start, int end, boolean optional) {
+    (optional ? optionalBusy : mandatoryBusy).add(start, end);
+  }
+
+  @Override
+  public Result run(int windowStart, int windowEnd, long duration) {
+    mandatoryBusy.sort();
+    mandatoryBusy.coalesce();
+    optionalBusy.sort();
+    optionalBusy.coalesce();
+
+    IntervalBuffer allAttendees = result.allAttendees;
+    IntervalBuffer mandatoryOnly = result.mandatoryOnly;
+    allAttendees.clear();
+    mandatoryOnly.clear();
+
+    // Both buffers are disjoint and sorted, so walking them in start order only needs to remember
+    // how far the busy time reaches for each answer.
+    int allBusyUntil = windowStart;
+    int mandatoryBusyUntil = windowStart;
+    int m = 0;
+    int o = 0;
+    while (m < mandatoryBusy.size() || o < optionalBusy.size()) {
+      boolean takeMandatory = o == optionalBusy.size()
+          || (m < mandatoryBusy.size() && mandatoryBusy.start(m) <= optionalBusy.start(o));
+      IntervalBuffer busy = takeMandatory ? mandatoryBusy : optionalBusy;
+      int i = takeMandatory ? m++ : o++;
+      int start = busy.start(i);
+      int end = busy.end(i);
+      if (start >= windowEnd) {
+        break;
+      }
+      if (takeMandatory) {
+        addSlot(mandatoryOnly, mandatoryBusyUntil, start, duration);
+        mandatoryBusyUntil = Math.max(mandatoryBusyUntil, end);
+      }
+      addSlot(allAttendees, allBusyUntil, start, duration);
+      allBusyUntil = Math.max(allBusyUntil, end);
+    }
+
+    addSlot(mandatoryOnly, mandatoryBusyUntil, windowEnd, duration);
+    addSlot(allAttendees, allBusyUntil, windowEnd, duration);
+    return result;
+  }
+
+  private static void addSlot(IntervalBuffer slots, int start, int end, long duration) {
+    int slotDuration = end - start;
+    if (slotDuration > 0 && slotDuration >= duration) {
+      slots.add(start, end);
+    }
+  }
+
+  /**
+   * The two answers produced by one sweep.
+   */
+  static final class Result {
+    private final IntervalBuffer allAttendees = new IntervalBuffer();
+    private final IntervalBuffer mandatoryOnly = new IntervalBuffer();
+
+    Result() {}
+
+    /**
+     * Returns the slots when both mandatory and optional attendees are free.
+     */
+    IntervalBuffer allAttendees() {
+      return allAttendees;
+    }
+
+    /**
+     * Returns the slots when the mandatory attendees are free.
+     */
+    IntervalBuffer mandatoryOnly() {
+      return mandatoryOnly;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * A calendar that many threads can read and write at once. Its state is an immutable
+ * {@link CalendarSnapshot}; every write builds a new snapshot from the current one and swaps it in
+ * atomically. Readers take the current snapshot and query it for as long as they like, never
+ * blocking and never blocking a writer. Writers that race simply retry against the snapshot that
+ * won, which is cheap since a write only copies what it changes.
+ */
+public final class SnapshotCalendar {
+  private final AtomicReference<CalendarSnapshot> current;
+  private final List<RecurringEvent> recurring;
+
+  /**
+   * Creates an empty calendar.
+   */
+  public SnapshotCalendar() {
+    this.current = new AtomicReference<>(CalendarSnapshot.empty());
+    this.recurring = Collections.emptyList();
+  }
+
+  /**
+   * Creates a calendar holding {@code events}, with ids counting up from 1 in iteration order.
+   *
+   * @param events The events. Must be non-null.
+   */
+  public SnapshotCalendar(Collection<Event> events) {
+    this(events, Collections.emptyList());
+  }
+
+  /**
+   * Creates a calendar holding {@code events}, with ids counting up from 1 in iteration order, and
+   * {@code recurring}, which cannot be changed later.
+   *
+   * @param events The events. Must be non-null.
+   * @param recurring The recurring events. Must be non-null.
+   */
+  public SnapshotCalendar(Collection<Event> events, Collection<RecurringEvent> recurring) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    if (recurring == null) {
+      throw new IllegalArgumentException("recurring cannot be null. Use empty array instead.");
+    }
+
+    this.current = new AtomicReference<>(CalendarSnapshot.of(events, recurring));
+    this.recurring = new ArrayList<>(recurring);
+  }
+
+  /**
+   * Creates a calendar holding the events and recurring events of {@code store}.
+   */
+  public static SnapshotCalendar of(EventStore store) {
+    return new SnapshotCalendar(store.getEvents(), store.getRecurringEvents());
+  }
+
+  /**
+   * Returns the current state of the calendar, which later writes do not change.
+   */
+  public CalendarSnapshot snapshot() {
+    return current.get();
+  }
+
+  /**
+   * Adds an event and returns its id.
+   */
+  public long add(Event event) {
+    checkEvent(event);
+    while (true) {
+      CalendarSnapshot snapshot = current.get();
+      long id = snapshot.nextId();
+      if (current.compareAndSet(snapshot, snapshot.withEvent(id, event))) {
+        return id;
+      }
+    }
+  }
+
+  /**
+   * Replaces the event with {@code id}. Returns false, and changes nothing, if there is none.
+   */
+  public boolean update(long id, Event event) {
+    checkEvent(event);
+    return apply(
+        snapshot -> snapshot.getEvent(id) == null ? snapshot : snapshot.withEvent(id, event));
+  }
+
+  /**
+   * Adds or replaces the event with {@code id}, for replaying writes whose ids were handed out
+   * before. Later ids handed out by {@link #add} are larger.
+   */
+  void put(long id, Event event) {
+    checkEvent(event);
+    apply(snapshot -> snapshot.withEvent(id, event));
+  }
+
+  /**
+   * Replaces every event with {@code events}, keyed by id, for restoring a checkpoint. The
+   * recurring events stay, and later ids handed out by {@link #add} start at {@code nextId}.
+   */
+  void restore(SortedMap<Long, Event> events, long nextId) {
+    long[] ids = new long[events.size()];
+    int i = 0;
+    for (long id : events.keySet()) {
+      ids[i++] = id;
+    }
+    current.set(CalendarSnapshot.of(new ArrayList<>(events.values()), ids, recurring, nextId));
+  }
+
+  /**
+   * Removes the event with {@code id}. Returns false, and changes nothing, if there is none.
+   */
+  public boolean remove(long id) {
+    return apply(snapshot -> snapshot.withoutEvent(id));
+  }
+
+  /**
+   * Swaps in {@code write} applied to the current snapshot, and returns whether it changed
+   * anything. A write that leaves the snapshot as it was does not count as a change.
+   */
+  private boolean apply(UnaryOperator<CalendarSnapshot> write) {
+    while (true) {
+      CalendarSnapshot snapshot = current.get();
+      CalendarSnapshot next = write.apply(snapshot);
+      if (next == snapshot) {
+        return false;
+      }
+      if (current.compareAndSet(snapshot, next)) {
+        return true;
+      }
+    }
+  }
+
+  private static void checkEvent(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+  }
+}
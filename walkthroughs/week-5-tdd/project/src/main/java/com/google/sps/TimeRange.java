@@ -21,10 +21,12 @@ import java.util.Comparator;
  * providing methods to make ranges easier to work with (e.g. {@code overlaps}).
  */
 public final class TimeRange {
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
   public static final int START_OF_DAY = getTimeInMinutes(0, 0);
   public static final int END_OF_DAY = getTimeInMinutes(23, 59);
 
-  public static final TimeRange WHOLE_DAY = new TimeRange(0, 24 * 60);
+  public static final TimeRange WHOLE_DAY = new TimeRange(0, MINUTES_PER_DAY);
 
   /**
    * A comparator for sorting ranges by their start time in ascending order.
@@ -168,6 +170,27 @@ public final class TimeRange {
     return (hours * 60) + minutes;
   }
 
+  /**
+   * Returns the number of minutes from the start of day 0 until {@code hours:minutes} on day
+   * {@code days}. Times on later days are larger than all times on earlier days, so ranges built
+   * from them can span several days.
+   */
+  public static int getTimeInMinutes(int days, int hours, int minutes) {
+    if (days < 0) {
+      throw new IllegalArgumentException("Days cannot be negative.");
+    }
+
+    return days * MINUTES_PER_DAY + getTimeInMinutes(hours, minutes);
+  }
+
+  /**
+   * Creates a {@code TimeRange} covering {@code days} whole days, starting at the beginning of day
+   * {@code firstDay}.
+   */
+  public static TimeRange fromDays(int firstDay, int days) {
+    return new TimeRange(getTimeInMinutes(firstDay, 0, 0), days * MINUTES_PER_DAY);
+  }
+
   /**
    * Creates a {@code TimeRange} from {@code start} to {@code end}. Whether or not {@code end} is
    * included in the range will depend on {@code inclusive}. If {@code inclusive} is {@code true},
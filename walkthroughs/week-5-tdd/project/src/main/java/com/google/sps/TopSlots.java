@@ -0,0 +1,98 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the best K slots handed out by an {@link OptionalAttendanceSweep}. The slots sit in a
+ * heap with the worst one on top, so each new slot either replaces it or is dropped, and memory
+ * stays O(K) however many slots the day is split into.
+ *
+ * <p>Slots are first grouped into tiers so that ranking never overrides which slots the request
+ * allows: normally slots that all optional attendees can make come before the rest, and when the
+ * request maximizes optional attendees every missing attendee is a tier of its own. Only the best
+ * tier that was seen is returned. Within a tier, slots are ordered by the scorer and then by start
+ * time.
+ */
+final class TopSlots implements OptionalAttendanceSweep.SlotConsumer {
+  private static final Comparator<Candidate> BEST_FIRST =
+      Comparator.<Candidate>comparingInt(candidate -> candidate.tier)
+          .thenComparingLong(candidate -> candidate.score)
+          .thenComparingInt(candidate -> candidate.slot.start());
+
+  private final MeetingRequest request;
+  private final SlotScorer scorer;
+  private final int limit;
+  private final PriorityQueue<Candidate> worstFirst;
+
+  /**
+   * Creates an empty ranking that keeps the {@code limit} best slots for {@code request}.
+   */
+  TopSlots(MeetingRequest request, SlotScorer scorer, int limit) {
+    this.request = request;
+    this.scorer = scorer;
+    this.limit = limit;
+    this.worstFirst = new PriorityQueue<>(Math.min(limit, 64) + 1, BEST_FIRST.reversed());
+  }
+
+  @Override
+  public void accept(int start, int end, int missingAttendees) {
+    int tier = request.shouldMaximizeOptionalAttendees()
+        ? missingAttendees
+        : (missingAttendees == 0 ? 0 : 1);
+    TimeRange slot = TimeRange.fromStartEnd(start, end, false);
+    Candidate candidate =
+        new Candidate(slot, tier, scorer.score(request, slot, missingAttendees));
+    if (worstFirst.size() < limit) {
+      worstFirst.add(candidate);
+    } else if (BEST_FIRST.compare(candidate, worstFirst.peek()) < 0) {
+      worstFirst.poll();
+      worstFirst.add(candidate);
+    }
+  }
+
+  /**
+   * Returns the kept slots of the best tier, best first.
+   */
+  List<TimeRange> ranked() {
+    List<Candidate> candidates = new ArrayList<>(worstFirst);
+    Collections.sort(candidates, BEST_FIRST);
+    List<TimeRange> slots = new ArrayList<>(candidates.size());
+    for (Candidate candidate : candidates) {
+      if (candidate.tier != candidates.get(0).tier) {
+        break;
+      }
+      slots.add(candidate.slot);
+    }
+    return slots;
+  }
+
+  private static final class Candidate {
+    private final TimeRange slot;
+    private final int tier;
+    private final long score;
+
+    Candidate(TimeRange slot, int tier, long score) {
+      this.slot = slot;
+      this.tier = tier;
+      this.score = score;
+    }
+  }
+}
@@ -0,0 +1,121 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The UTC offsets of one time zone on the scheduler's timeline, whose minute 0 is midnight UTC at
+ * the start of {@link #EPOCH}. Wall-clock minutes in the zone are converted to timeline minutes
+ * with a table lookup, so that the scheduler only ever does integer arithmetic.
+ *
+ * <p>Each day uses the offset in effect at noon, local time. Daylight saving time changes at night,
+ * so this is exact for the daytime hours meetings are booked in. Offsets are computed once per day
+ * and zone and then shared by every attendee and event in that zone.
+ */
+public final class ZoneOffsets {
+  /** The day that timeline minute 0 belongs to. */
+  public static final LocalDate EPOCH = LocalDate.of(2020, 1, 1);
+
+  /** The offsets of UTC itself, which are all 0. */
+  public static final ZoneOffsets UTC = new ZoneOffsets(ZoneId.of("UTC"));
+
+  private static final ConcurrentMap<String, ZoneOffsets> CACHE = new ConcurrentHashMap<>();
+  // Days are added to the table a year at a time, up to this many years after the epoch.
+  private static final int DAYS_PER_BLOCK = 366;
+  private static final int MAX_TABLE_DAYS = 100 * DAYS_PER_BLOCK;
+
+  private final ZoneRules rules;
+  // The offset of zones that never change it, such as UTC, or null.
+  private final Integer fixedOffset;
+  // The offset in minutes of day i of the timeline, for 0 <= i < offsets.length.
+  private volatile int[] offsets = new int[0];
+
+  private ZoneOffsets(ZoneId zone) {
+    this.rules = zone.getRules();
+    this.fixedOffset =
+        rules.isFixedOffset() ? rules.getOffset(Instant.EPOCH).getTotalSeconds() / 60 : null;
+  }
+
+  /**
+   * Returns the offsets of the zone with the given id, such as "Europe/Paris". Null means UTC.
+   *
+   * @throws java.time.DateTimeException if the id is not a known zone
+   */
+  public static ZoneOffsets of(String zoneId) {
+    if (zoneId == null) {
+      return UTC;
+    }
+    return CACHE.computeIfAbsent(zoneId, id -> new ZoneOffsets(ZoneId.of(id)));
+  }
+
+  /**
+   * Returns how many minutes the zone is ahead of UTC on {@code day} of the timeline.
+   */
+  public int offsetOnDay(int day) {
+    int[] table = offsets;
+    if (day >= 0 && day < table.length) {
+      return table[day];
+    }
+    if (fixedOffset != null) {
+      return fixedOffset;
+    }
+    if (day < 0 || day >= MAX_TABLE_DAYS) {
+      // Days before the epoch or a century after it are rare enough not to be worth a table.
+      return computeOffset(day);
+    }
+    return grow(day)[day];
+  }
+
+  /**
+   * Converts a wall-clock minute in this zone, counted from midnight at the start of
+   * {@link #EPOCH}, to a minute of the UTC timeline.
+   */
+  public int toUtc(int localMinute) {
+    return localMinute - offsetOnDay(Math.floorDiv(localMinute, TimeRange.MINUTES_PER_DAY));
+  }
+
+  /**
+   * Converts a range of wall-clock minutes in this zone to the UTC timeline. The duration is kept.
+   */
+  public TimeRange toUtc(TimeRange local) {
+    return TimeRange.fromStartDuration(toUtc(local.start()), local.duration());
+  }
+
+  private synchronized int[] grow(int day) {
+    int[] table = offsets;
+    if (day < table.length) {
+      return table;
+    }
+    int length = (day / DAYS_PER_BLOCK + 1) * DAYS_PER_BLOCK;
+    int[] grown = Arrays.copyOf(table, length);
+    for (int i = table.length; i < length; i++) {
+      grown[i] = computeOffset(i);
+    }
+    offsets = grown;
+    return grown;
+  }
+
+  private int computeOffset(int day) {
+    return rules.getOffset(EPOCH.plusDays(day).atTime(LocalTime.NOON)).getTotalSeconds() / 60;
+  }
+}
@@ -0,0 +1,86 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a JSON array of meeting requests with a JSON array of answers, in the same order. Each
+ * answer is the array of time ranges that {@code /query} would return for that request. All the
+ * requests are answered from the same snapshot of the calendar.
+ */
+@WebServlet("/query-batch")
+public class BatchQueryServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to instances of MeetingRequest.
+    MeetingRequest[] meetingRequests;
+    try {
+      meetingRequests = gson.fromJson(request.getReader(), MeetingRequest[].class);
+    } catch (JsonSyntaxException e) {
+      meetingRequests = null;
+    }
+    if (meetingRequests == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an array of requests.");
+      return;
+    }
+    for (int i = 0; i < meetingRequests.length; i++) {
+      if (meetingRequests[i] == null || !meetingRequests[i].isValid()) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+            "Request " + i + " needs attendees and a positive duration.");
+        return;
+      }
+    }
+
+    // Find the possible meeting times for all the requests at once.
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+    List<Collection<TimeRange>> answers;
+    try {
+      answers = findMeetingQuery.queryAll(
+          EventStoreListener.getCalendar(getServletContext()).snapshot(),
+          Arrays.asList(meetingRequests));
+    } catch (DateTimeException e) {
+      // A request names a time zone that does not exist.
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    // Stream the answers back one at a time instead of building the whole JSON string.
+    response.setContentType("application/json");
+    JsonWriter writer = gson.newJsonWriter(response.getWriter());
+    writer.beginArray();
+    for (Collection<TimeRange> answer : answers) {
+      gson.toJson(answer, answer.getClass(), writer);
+    }
+    writer.endArray();
+    writer.flush();
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.Conflict;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Tells a client which existing events a proposed meeting would clash with before it is booked.
+ * The request body names the proposed time and attendees:
+ *
+ * <pre>
+ * {"when": {"start": 600, "duration": 60}, "attendees": ["Ava", "Liam"]}
+ * </pre>
+ *
+ * <p>The response is an array of {@code {"event": ..., "attendees": [...]}} objects, one per
+ * clashing event sorted by start time, with the proposed attendees that event keeps busy.
+ */
+@WebServlet("/conflicts")
+public class ConflictsServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    ProposedMeeting proposed;
+    try {
+      proposed = gson.fromJson(request.getReader(), ProposedMeeting.class);
+    } catch (JsonSyntaxException e) {
+      proposed = null;
+    }
+    if (proposed == null || proposed.when == null || proposed.attendees == null) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST, "Expected a proposed time and attendees.");
+      return;
+    }
+
+    // Answer from the current snapshot, so that events added through /events are seen.
+    CalendarSnapshot snapshot = EventStoreListener.getCalendar(getServletContext()).snapshot();
+    List<Conflict> conflicts = snapshot.findConflicts(proposed.when, proposed.attendees);
+
+    response.setContentType("application/json");
+    response.getWriter().println(gson.toJson(conflicts));
+  }
+
+  /**
+   * The JSON body of a request.
+   */
+  private static final class ProposedMeeting {
+    private TimeRange when;
+    private List<String> attendees;
+  }
+}
@@ -0,0 +1,118 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.EventLoader;
+import com.google.sps.EventLog;
+import com.google.sps.EventStore;
+import com.google.sps.Events;
+import com.google.sps.SnapshotCalendar;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Loads the calendar into an {@link EventStore} when the server starts, and shares a
+ * {@link SnapshotCalendar} of the same events with the servlets through the servlet context. The
+ * store itself is dropped once the calendar is built. If the context parameter or system property
+ * {@value #EVENTS_FILE} names a JSON file, the events are streamed from it; otherwise the calendar
+ * holds the built-in {@code Events.events}.
+ *
+ * <p>If {@value #EVENT_LOG_FILE} names a file, the changes made through {@code /events} are kept
+ * in an {@link EventLog} there, which checkpoints them next to the file, and are restored into the
+ * calendar at startup. Otherwise changes only last until the server stops.
+ */
+@WebListener
+public class EventStoreListener implements ServletContextListener {
+  static final String EVENTS_FILE = "sps.eventsFile";
+  static final String EVENT_LOG_FILE = "sps.eventLogFile";
+
+  private static final String CALENDAR = SnapshotCalendar.class.getName();
+  private static final String EVENT_LOG = EventLog.class.getName();
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    ServletContext context = event.getServletContext();
+    String file = setting(context, EVENTS_FILE);
+
+    EventStore store;
+    if (file == null) {
+      store = new EventStore(Arrays.asList(Events.events));
+    } else {
+      try {
+        store = new EventLoader().load(Paths.get(file));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not load events from " + file, e);
+      }
+      context.log("Loaded " + store.size() + " events from " + file);
+    }
+    setCalendar(context, store);
+
+    String logFile = setting(context, EVENT_LOG_FILE);
+    if (logFile != null) {
+      try {
+        EventLog log = EventLog.open(Paths.get(logFile), getCalendar(context));
+        context.setAttribute(EVENT_LOG, log);
+        context.log("Replayed " + log.getReplayedCount() + " changes from " + logFile);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not open the event log " + logFile, e);
+      }
+    }
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    EventLog log = getEventLog(event.getServletContext());
+    if (log != null) {
+      try {
+        log.close();
+      } catch (IOException e) {
+        event.getServletContext().log("Could not close the event log", e);
+      }
+    }
+  }
+
+  private static String setting(ServletContext context, String name) {
+    String value = context.getInitParameter(name);
+    return value != null ? value : System.getProperty(name);
+  }
+
+  /**
+   * Returns the log that changes to the calendar go through, or null if changes are not kept.
+   */
+  static EventLog getEventLog(ServletContext context) {
+    return (EventLog) context.getAttribute(EVENT_LOG);
+  }
+
+  /**
+   * Returns the calendar the servlets should query.
+   */
+  static SnapshotCalendar getCalendar(ServletContext context) {
+    return (SnapshotCalendar) context.getAttribute(CALENDAR);
+  }
+
+  /**
+   * Replaces the calendar the servlets query with one holding the events in {@code store}. The
+   * store must be fully loaded.
+   */
+  static void setCalendar(ServletContext context, EventStore store) {
+    context.setAttribute(CALENDAR, SnapshotCalendar.of(store));
+  }
+}
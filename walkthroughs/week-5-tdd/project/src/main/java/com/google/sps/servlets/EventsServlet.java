@@ -0,0 +1,192 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.sps.Event;
+import com.google.sps.EventLog;
+import com.google.sps.SnapshotCalendar;
+import com.google.sps.TimeRange;
+import com.google.sps.ZoneOffsets;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.util.Collections;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Adds, changes and removes events. The body of a POST or PUT is an event in the format that
+ * {@code /get-events} serves:
+ *
+ * <pre>
+ * {"title": "Standup", "when": {"start": 540, "duration": 15}, "attendees": ["Ava", "Liam"]}
+ * </pre>
+ *
+ * <p>Like in the events file, the {@code when} can name the time zone its start is given in, as
+ * in {@code {"start": 540, "duration": 15, "zone": "Europe/Paris"}}. The event is kept in UTC.
+ *
+ * <p>A POST adds the event and answers {@code {"id": 42}}. A PUT to {@code /events?id=42} replaces
+ * that event, and a DELETE to it removes the event; both answer 204, or 404 if there is no such
+ * event. Each change is visible to queries at once, and is on disk before the answer is sent if
+ * the server keeps an {@link EventLog}.
+ */
+@WebServlet("/events")
+public class EventsServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Event event = readEvent(request, response);
+    if (event == null) {
+      return;
+    }
+
+    EventLog log = EventStoreListener.getEventLog(getServletContext());
+    long id;
+    try {
+      id = log != null ? log.add(event) : getCalendar().add(event);
+    } catch (IllegalArgumentException e) {
+      // The log refuses events with a title or attendee too long to write down.
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    response.setStatus(HttpServletResponse.SC_CREATED);
+    response.setContentType("application/json");
+    response.getWriter().println("{\"id\":" + id + "}");
+  }
+
+  @Override
+  public void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Long id = readId(request, response);
+    if (id == null) {
+      return;
+    }
+    Event event = readEvent(request, response);
+    if (event == null) {
+      return;
+    }
+
+    EventLog log = EventStoreListener.getEventLog(getServletContext());
+    boolean updated;
+    try {
+      updated = log != null ? log.update(id, event) : getCalendar().update(id, event);
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    sendChangeResult(updated, id, response);
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    Long id = readId(request, response);
+    if (id == null) {
+      return;
+    }
+
+    EventLog log = EventStoreListener.getEventLog(getServletContext());
+    boolean removed = log != null ? log.remove(id) : getCalendar().remove(id);
+    sendChangeResult(removed, id, response);
+  }
+
+  private SnapshotCalendar getCalendar() {
+    return EventStoreListener.getCalendar(getServletContext());
+  }
+
+  private static void sendChangeResult(boolean changed, long id, HttpServletResponse response)
+      throws IOException {
+    if (changed) {
+      response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    } else {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "There is no event " + id + ".");
+    }
+  }
+
+  /**
+   * Returns the {@code id} parameter, or sends a 400 and returns null if it is missing or not a
+   * number.
+   */
+  private static Long readId(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    try {
+      return Long.parseLong(request.getParameter("id"));
+    } catch (NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected the id of an event.");
+      return null;
+    }
+  }
+
+  /**
+   * Returns the event in the request body, converted to UTC, or sends a 400 and returns null if
+   * there is none, it has a null attendee or a negative duration, it does not fit the timeline, or
+   * its time zone is unknown.
+   */
+  private static Event readEvent(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    EventBody body;
+    try {
+      body = new Gson().fromJson(request.getReader(), EventBody.class);
+    } catch (JsonSyntaxException e) {
+      body = null;
+    }
+    if (body == null || body.title == null || body.when == null
+        || (body.attendees != null && body.attendees.contains(null))) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an event.");
+      return null;
+    }
+    // Leave a day of room at both ends of the timeline, so that moving the event out of its zone
+    // cannot overflow either.
+    long end = (long) body.when.start + body.when.duration;
+    if (body.when.duration < 0 || body.when.start < Integer.MIN_VALUE + TimeRange.MINUTES_PER_DAY
+        || end > Integer.MAX_VALUE - TimeRange.MINUTES_PER_DAY) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "Expected a duration that is not negative and a time that fits the timeline.");
+      return null;
+    }
+    TimeRange when;
+    try {
+      when = ZoneOffsets.of(body.when.zone)
+          .toUtc(TimeRange.fromStartDuration(body.when.start, body.when.duration));
+    } catch (DateTimeException e) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST, "Unknown time zone " + body.when.zone + ".");
+      return null;
+    }
+    return new Event(body.title, when,
+        body.attendees == null ? Collections.emptyList() : body.attendees);
+  }
+
+  /**
+   * The JSON body of a request.
+   */
+  private static final class EventBody {
+    private String title;
+    private When when;
+    private List<String> attendees;
+  }
+
+  /**
+   * The {@code when} of an event, in wall-clock minutes of its zone, or of UTC if it has none.
+   */
+  private static final class When {
+    private int start;
+    private int duration;
+    private String zone;
+  }
+}
@@ -14,23 +14,198 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
-import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Serves every event in the calendar as JSON, with the id that {@code /events} knows it by. The
+ * JSON is built once per snapshot of the calendar and kept both as is and gzip-compressed, each
+ * with a strong ETag derived from the content, so most requests are answered by copying bytes or
+ * with a 304.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  // The response for the snapshot that was served last. Rebuilt when the calendar changes.
+  private volatile CachedResponse cache;
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    CalendarSnapshot snapshot = EventStoreListener.getCalendar(getServletContext()).snapshot();
+    CachedResponse cached = getCachedResponse(snapshot);
+
+    boolean gzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    // The two bodies are different bytes, so each gets its own strong ETag.
+    response.setHeader("ETag", gzip ? cached.gzippedEtag : cached.etag);
+    // Clients may keep the events, but have to check the ETag before using them again.
+    response.setHeader("Cache-Control", "no-cache");
+    response.setHeader("Vary", "Accept-Encoding");
+    // A cache that kept either body still holds the current events.
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (matchesETag(ifNoneMatch, cached.etag) || matchesETag(ifNoneMatch, cached.gzippedEtag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
 
-    // Send the JSON back as the response
+    byte[] body = cached.json;
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+      body = cached.gzippedJson;
+    }
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    response.setCharacterEncoding("UTF-8");
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  private CachedResponse getCachedResponse(CalendarSnapshot snapshot) {
+    CachedResponse cached = cache;
+    if (cached != null && cached.snapshot == snapshot) {
+      return cached;
+    }
+    synchronized (this) {
+      // Another request may have rebuilt it while this one was waiting.
+      cached = cache;
+      if (cached == null || cached.snapshot != snapshot) {
+        cached = new CachedResponse(snapshot);
+        cache = cached;
+      }
+      return cached;
+    }
+  }
+
+  /**
+   * Returns true if the {@code If-None-Match} header names {@code etag}. As the header only guards
+   * a GET, the comparison is weak: a {@code W/} prefix is ignored.
+   */
+  private static boolean matchesETag(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the {@code Accept-Encoding} header allows gzip, which it does unless gzip is
+   * missing or given a quality of zero.
+   */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split("\\s*;\\s*");
+      if (!parts[0].equalsIgnoreCase("gzip")) {
+        continue;
+      }
+      for (int i = 1; i < parts.length; i++) {
+        if (parts[i].matches("q=0(\\.0*)?")) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * The response bytes for one snapshot of the calendar.
+   */
+  private static final class CachedResponse {
+    private final CalendarSnapshot snapshot;
+    private final byte[] json;
+    private final byte[] gzippedJson;
+    private final String etag;
+    private final String gzippedEtag;
+
+    CachedResponse(CalendarSnapshot snapshot) {
+      this.snapshot = snapshot;
+      this.json = toJson(snapshot);
+      this.gzippedJson = gzip(json);
+      String hash = sha256(json);
+      this.etag = '"' + hash + '"';
+      this.gzippedEtag = '"' + hash + "-gzip\"";
+    }
+  }
+
+  private static byte[] toJson(CalendarSnapshot snapshot) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+      JsonWriter writer = new JsonWriter(out);
+      writer.beginArray();
+      for (Map.Entry<Long, Event> entry : snapshot.getEvents().entrySet()) {
+        Event event = entry.getValue();
+        TimeRange when = event.getWhen();
+        writer.beginObject();
+        writer.name("id").value(entry.getKey());
+        writer.name("title").value(event.getTitle());
+        writer.name("when").beginObject();
+        writer.name("start").value(when.start());
+        writer.name("duration").value(when.duration());
+        writer.endObject();
+        writer.name("attendees").beginArray();
+        for (String attendee : event.getAttendees()) {
+          writer.value(attendee);
+        }
+        writer.endArray();
+        writer.endObject();
+      }
+      writer.endArray();
+      writer.flush();
+    } catch (IOException e) {
+      // Writing to memory does not fail.
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] gzip(byte[] data) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4 + 64);
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(data);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static String sha256(byte[] data) {
+    byte[] digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256").digest(data);
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+    StringBuilder hex = new StringBuilder();
+    // Half of the digest is plenty to tell versions of the calendar apart.
+    for (int i = 0; i < 16; i++) {
+      hex.append(String.format("%02x", digest[i]));
+    }
+    return hex.toString();
   }
 }
@@ -0,0 +1,54 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.sps.EventLoader;
+import com.google.sps.EventStore;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Replaces the calendar with the JSON array of events in the request body, in the format that
+ * {@code /get-events} serves. The events are streamed into a new store, which only replaces the
+ * current calendar once it is complete, so queries never see a half-loaded calendar.
+ */
+@WebServlet("/load-events")
+public class LoadEventsServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (EventStoreListener.getEventLog(getServletContext()) != null) {
+      // The log is replayed on top of the calendar the server starts with, not this one.
+      response.sendError(HttpServletResponse.SC_CONFLICT,
+          "The calendar is kept in an event log; change it through /events.");
+      return;
+    }
+
+    EventStore store;
+    try {
+      store = new EventLoader().load(request.getReader());
+    } catch (JsonSyntaxException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an array of events.");
+      return;
+    }
+    EventStoreListener.setCalendar(getServletContext(), store);
+
+    response.setContentType("application/json");
+    response.getWriter().println("{\"events\":" + store.size() + "}");
+  }
+}
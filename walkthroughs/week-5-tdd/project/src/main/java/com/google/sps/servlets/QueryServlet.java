@@ -14,13 +14,13 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
 import com.google.sps.TimeRange;
 import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
 import java.io.IOException;
-import java.util.Arrays;
+import java.time.DateTimeException;
 import java.util.Collection;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
@@ -34,12 +34,29 @@ public class QueryServlet extends HttpServlet {
     Gson gson = new Gson();
 
     // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    } catch (JsonSyntaxException e) {
+      meetingRequest = null;
+    }
+    if (meetingRequest == null || !meetingRequest.isValid()) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST, "Expected a request with attendees and a duration.");
+      return;
+    }
 
     // Find the possible meeting times.
     FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    Collection<TimeRange> answer;
+    try {
+      answer = findMeetingQuery.query(
+          EventStoreListener.getCalendar(getServletContext()).snapshot(), meetingRequest);
+    } catch (DateTimeException e) {
+      // The request names a time zone that does not exist.
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
 
     // Convert the times to JSON
     String jsonResponse = gson.toJson(answer);
@@ -29,15 +29,78 @@ function sendMeetingRequest() {
   // split it into an array of names
   const optionalAttendees = optionalAttendeesNamesString.split(/\s*,\s*/);
 
+  const maximizeOptionalAttendees =
+      document.getElementById('maximize-optional-attendees').checked;
+
+  // 0 asks for every option, unranked.
+  const maxResults = Number(document.getElementById('max-results').value) || 0;
+  const ranking = document.getElementById('ranking').value;
+  const preferredTime =
+      timeToMinutes(document.getElementById('preferred-time').value) || 0;
+
+  // Only search between these times, if both are given.
+  const searchStart = timeToMinutes(document.getElementById('search-start').value);
+  const searchEnd = timeToMinutes(document.getElementById('search-end').value);
+  const searchWindow = searchStart !== null && searchEnd !== null ?
+      new TimeRange(searchStart, searchEnd - searchStart) : null;
+
+  // comma-separated list of "Name HH:MM-HH:MM", optionally followed by a time
+  // zone such as "Europe/Paris"
+  const workingHours = {};
+  const timeZones = {};
+  parseWorkingHours(document.getElementById('working-hours').value,
+      workingHours, timeZones);
+
   // Create the request to send to the server using the data we collected from
   // the web form.
-  const meetingRequest = new MeetingRequest(duration, attendees, optionalAttendees);
+  const meetingRequest = new MeetingRequest(
+      duration, attendees, optionalAttendees, maximizeOptionalAttendees,
+      maxResults, ranking, preferredTime, searchWindow, workingHours,
+      timeZones, /* room_capacity= */ 0);
 
   queryServer(meetingRequest).then((timeRanges) => {
     updateResultsOnPage(timeRanges);
   });
 }
 
+/**
+ * Converts "HH:MM" from a time picker to minutes since midnight, or null if
+ * the picker is empty.
+ */
+function timeToMinutes(timeString) {
+  if (!timeString) {
+    return null;
+  }
+  const [hours, minutes] = timeString.split(':').map(Number);
+  return hours * 60 + minutes;
+}
+
+/**
+ * Parses "Ava 09:00-17:00, Liam 22:00-06:00 Asia/Tokyo" into working hours and
+ * time zones by attendee. Hours that end before they start run past midnight.
+ * Attendees without a zone are in UTC. Entries that do not match the pattern
+ * are skipped.
+ */
+function parseWorkingHours(workingHoursString, workingHours, timeZones) {
+  const pattern =
+      /^(.+?)\s+(\d{1,2}:\d{2})\s*-\s*(\d{1,2}:\d{2})(?:\s+(\S+\/\S+|UTC))?$/;
+  for (const entry of workingHoursString.split(/\s*,\s*/)) {
+    const match = entry.match(pattern);
+    if (!match) {
+      continue;
+    }
+    const start = timeToMinutes(match[2]);
+    let end = timeToMinutes(match[3]);
+    if (end <= start) {
+      end += 24 * 60;
+    }
+    workingHours[match[1]] = new TimeRange(start, end - start);
+    if (match[4]) {
+      timeZones[match[1]] = match[4];
+    }
+  }
+}
+
 /**
  * Updates the UI to show the results of a query.
  */
@@ -92,10 +155,20 @@ function timeToString(totalMinutes) {
  * Request for possible meeting times.
  */
 class MeetingRequest {
-  constructor(duration, attendees, optional_attendees) {
+  constructor(duration, attendees, optional_attendees,
+      maximize_optional_attendees, max_results, ranking, preferred_time,
+      search_window, working_hours, time_zones, room_capacity) {
     this.duration = duration;
     this.attendees = attendees;
     this.optional_attendees = optional_attendees;
+    this.maximize_optional_attendees = maximize_optional_attendees;
+    this.max_results = max_results;
+    this.ranking = ranking;
+    this.preferred_time = preferred_time;
+    this.search_window = search_window;
+    this.working_hours = working_hours;
+    this.time_zones = time_zones;
+    this.room_capacity = room_capacity;
   }
 }
 
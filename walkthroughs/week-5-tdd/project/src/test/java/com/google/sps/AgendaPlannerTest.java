@@ -0,0 +1,138 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AgendaPlannerTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+  private static final long BUDGET_MILLIS = 1000;
+
+  private AgendaPlanner planner;
+  private EventIndex index;
+
+  @Before
+  public void setUp() {
+    planner = new AgendaPlanner();
+    index = new EventIndex();
+  }
+
+  /** Makes {@code attendee} busy all day except during {@code free}. */
+  private void freeOnlyDuring(String attendee, TimeRange free) {
+    index.add(new Event("Busy", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, free.start(), false),
+        Arrays.asList(attendee)));
+    index.add(new Event("Busy", TimeRange.fromStartEnd(free.end(), TimeRange.END_OF_DAY, true),
+        Arrays.asList(attendee)));
+  }
+
+  @Test
+  public void placesTheMostConstrainedMeetingFirst() {
+    // Placing the first meeting at the earliest time would leave no room for the second one.
+    freeOnlyDuring(PERSON_A, TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false));
+    freeOnlyDuring(PERSON_B, TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR);
+
+    AgendaPlan plan = planner.plan(index, Arrays.asList(first, second), BUDGET_MILLIS);
+
+    assertTrue(plan.isComplete());
+    assertTrue(plan.isExhaustive());
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_1000AM, DURATION_1_HOUR),
+            TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR)),
+        plan.getSlots());
+  }
+
+  @Test
+  public void meetingsThatShareAnAttendeeDoNotOverlap() {
+    freeOnlyDuring(PERSON_A, TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false));
+    freeOnlyDuring(PERSON_B, TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false));
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR - 15);
+    MeetingRequest third = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_1_HOUR - 15);
+
+    AgendaPlan plan = planner.plan(index, Arrays.asList(first, second, third), BUDGET_MILLIS);
+
+    assertTrue(plan.isComplete());
+    assertNoOverlap(plan.getSlot(0), plan.getSlot(1));
+    assertNoOverlap(plan.getSlot(0), plan.getSlot(2));
+  }
+
+  @Test
+  public void returnsThePartialPlanWhenNotEverythingFits() {
+    freeOnlyDuring(PERSON_A, TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    AgendaPlan plan = planner.plan(index, Arrays.asList(first, second), BUDGET_MILLIS);
+
+    assertFalse(plan.isComplete());
+    assertTrue(plan.isExhaustive());
+    assertEquals(1, plan.getPlacedCount());
+    assertEquals(TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR), plan.getSlot(0));
+    assertNull(plan.getSlot(1));
+  }
+
+  @Test
+  public void meetingsWithoutSharedAttendeesCanOverlap() {
+    freeOnlyDuring(PERSON_A, TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+    freeOnlyDuring(PERSON_C, TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_1_HOUR);
+
+    AgendaPlan plan = planner.plan(index, Arrays.asList(first, second), BUDGET_MILLIS);
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR),
+            TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR)),
+        plan.getSlots());
+  }
+
+  @Test
+  public void noBudgetStillGivesTheFirstPlan() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    AgendaPlan plan = planner.plan(index, Arrays.asList(request, request, request), 0);
+
+    assertTrue(plan.isComplete());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void budgetCannotBeNegative() {
+    planner.plan(index, Arrays.asList(), -1);
+  }
+
+  private static void assertNoOverlap(TimeRange a, TimeRange b) {
+    assertFalse(a + " overlaps " + b, a.overlaps(b));
+  }
+}
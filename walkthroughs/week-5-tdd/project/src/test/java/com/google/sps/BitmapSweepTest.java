@@ -0,0 +1,115 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the bitmap engine on word boundaries and against the sorting sweep on random calendars.
+ */
+@RunWith(JUnit4.class)
+public final class BitmapSweepTest {
+  private static final boolean MANDATORY = false;
+  private static final boolean OPTIONAL = true;
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private BitmapSweep sweep;
+
+  @Before
+  public void setUp() {
+    sweep = new BitmapSweep();
+  }
+
+  private SlotSweep.Result runWholeDay(long duration) {
+    return sweep.run(TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end(), duration);
+  }
+
+  @Test
+  public void noBusyIntervals() {
+    SlotSweep.Result result = runWholeDay(DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+    assertEquals(expected, result.allAttendees().toTimeRanges());
+    assertEquals(expected, result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void intervalsOnWordBoundaries() {
+    // Minutes 63, 64..127 and 128 sit at the edges of the second word.
+    sweep.addBusy(63, 64, MANDATORY);
+    sweep.addBusy(64, 128, OPTIONAL);
+    sweep.addBusy(130, 131, MANDATORY);
+
+    SlotSweep.Result result = runWholeDay(1);
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(0, 63, false), TimeRange.fromStartEnd(64, 130, false),
+            TimeRange.fromStartEnd(131, TimeRange.END_OF_DAY, true)),
+        result.mandatoryOnly().toTimeRanges());
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(0, 63, false),
+            TimeRange.fromStartEnd(128, 130, false),
+            TimeRange.fromStartEnd(131, TimeRange.END_OF_DAY, true)),
+        result.allAttendees().toTimeRanges());
+  }
+
+  @Test
+  public void windowNotAlignedToDay() {
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), MANDATORY);
+
+    SlotSweep.Result result = sweep.run(TIME_0800AM + 10, TIME_0900AM, DURATION_30_MINUTES);
+
+    assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM + 30, TIME_0900AM, false)),
+        result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void matchesSlotSweepOnRandomCalendars() {
+    Random random = new Random(42);
+    SlotSweep reference = new SlotSweep();
+    for (int round = 0; round < 200; round++) {
+      sweep.reset();
+      reference.reset();
+      int windowStart = random.nextInt(TimeRange.MINUTES_PER_DAY);
+      int windowEnd = windowStart + 1 + random.nextInt(3 * TimeRange.MINUTES_PER_DAY);
+      int intervals = random.nextInt(40);
+      for (int i = 0; i < intervals; i++) {
+        int start = windowStart - 100 + random.nextInt(windowEnd - windowStart + 200);
+        int end = start + random.nextInt(200);
+        boolean optional = random.nextBoolean();
+        sweep.addBusy(start, end, optional);
+        reference.addBusy(start, end, optional);
+      }
+      long duration = random.nextInt(120);
+
+      SlotSweep.Result expected = reference.run(windowStart, windowEnd, duration);
+      SlotSweep.Result actual = sweep.run(windowStart, windowEnd, duration);
+
+      assertEquals(expected.mandatoryOnly().toTimeRanges(), actual.mandatoryOnly().toTimeRanges());
+      assertEquals(expected.allAttendees().toTimeRanges(), actual.allAttendees().toTimeRanges());
+    }
+  }
+}
@@ -0,0 +1,211 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1030AM = TimeRange.getTimeInMinutes(10, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void busyTimesAreSortedByStart() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)));
+
+    EventIndex index = new EventIndex(events);
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES)),
+        index.getBusyTimes(PERSON_A));
+    assertEquals(Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES)),
+        index.getBusyTimes(PERSON_B));
+  }
+
+  @Test
+  public void unknownAttendeeIsNeverBusy() {
+    EventIndex index = new EventIndex(Collections.emptySet());
+
+    assertEquals(Collections.emptyList(), index.getBusyTimes(PERSON_C));
+  }
+
+  @Test
+  public void queryByIndexMatchesQueryByEvents() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    EventIndex index = new EventIndex(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Ava", "Isabella"), 30);
+    request.addOptionalAttendee("Liam");
+    request.addOptionalAttendee("Oliver");
+
+    assertEquals(query.query(events, request), query.query(index, request));
+  }
+
+  @Test
+  public void addingEventsMergesTouchingAndOverlappingBusyTimes() {
+    EventIndex index = new EventIndex();
+    index.add(new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+        Arrays.asList(PERSON_A)));
+    index.add(new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TIME_1030AM, false),
+        Arrays.asList(PERSON_A)));
+    index.add(new Event("Event 3", TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A, PERSON_B)));
+
+    assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1030AM, false)),
+        new ArrayList<>(index.getMergedBusyTimes(PERSON_A, TimeRange.WHOLE_DAY)));
+    assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false)),
+        new ArrayList<>(index.getMergedBusyTimes(PERSON_B, TimeRange.WHOLE_DAY)));
+  }
+
+  @Test
+  public void removingAnEventSplitsMergedBusyTimes() {
+    Event middle = new Event("Event 3", TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A, PERSON_B));
+    EventIndex index = new EventIndex(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TIME_1030AM, false),
+            Arrays.asList(PERSON_A)),
+        middle));
+
+    assertTrue(index.remove(middle));
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1030AM, false)),
+        new ArrayList<>(index.getMergedBusyTimes(PERSON_A, TimeRange.WHOLE_DAY)));
+    assertEquals(Collections.emptyList(),
+        new ArrayList<>(index.getMergedBusyTimes(PERSON_B, TimeRange.WHOLE_DAY)));
+  }
+
+  @Test
+  public void removingAnEventBeforeTheEpochKeepsTheOthers() {
+    Event removed = new Event("Event 2", TimeRange.fromStartEnd(-90, -30, false),
+        Arrays.asList(PERSON_A));
+    EventIndex index = new EventIndex(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(-120, -60, false), Arrays.asList(PERSON_A)),
+        removed,
+        new Event("Event 3", TimeRange.fromStartEnd(-45, 0, false), Arrays.asList(PERSON_A))));
+
+    assertTrue(index.remove(removed));
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(-120, -60, false),
+            TimeRange.fromStartEnd(-45, 0, false)),
+        new ArrayList<>(
+            index.getMergedBusyTimes(PERSON_A, TimeRange.fromStartEnd(-120, 0, false))));
+  }
+
+  @Test
+  public void removingAnUnknownEventChangesNothing() {
+    Event known = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    EventIndex index = new EventIndex(Arrays.asList(known));
+
+    assertFalse(index.remove(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B))));
+
+    assertEquals(Arrays.asList(known.getWhen()), index.getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void mergedBusyTimesOnlyIncludeIntervalsReachingIntoTheWindow() {
+    EventIndex index = new EventIndex(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1030AM, TIME_1030AM + 30, false),
+            Arrays.asList(PERSON_A))));
+
+    assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)),
+        new ArrayList<>(index.getMergedBusyTimes(
+            PERSON_A, TimeRange.fromStartEnd(TIME_0830AM, TIME_1030AM, false))));
+  }
+
+  @Test
+  public void cachedMergedBusyTimesFollowUpdates() {
+    EventIndex index = new EventIndex(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A))));
+    TimeRange window = TimeRange.fromStartEnd(TIME_0830AM, TIME_1030AM, false);
+    assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)),
+        mergedBusyTimes(index, PERSON_A, window));
+
+    index.add(new Event("Event 3", TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A)));
+
+    assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false)),
+        mergedBusyTimes(index, PERSON_A, window));
+    assertEquals(Collections.emptyList(), mergedBusyTimes(index, PERSON_B, window));
+  }
+
+  @Test
+  public void queryAfterUpdatesMatchesFreshIndex() {
+    List<Event> events = new ArrayList<>(Arrays.asList(Events.events));
+    EventIndex index = new EventIndex(events);
+    Event added = new Event("Standup", TimeRange.fromStartDuration(TIME_0900AM, 90),
+        Arrays.asList("Ava", "Liam"));
+    index.add(added);
+    events.add(added);
+    Event removed = events.remove(0);
+    assertTrue(index.remove(removed));
+    FindMeetingQuery query = new FindMeetingQuery();
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Ava", "Isabella"), 30);
+    request.addOptionalAttendee("Liam");
+
+    assertEquals(query.query(new EventIndex(events), request), query.query(index, request));
+    assertEquals(query.query(events, request), query.query(index, request));
+  }
+
+  private static List<TimeRange> mergedBusyTimes(
+      EventIndex index, String attendee, TimeRange window) {
+    IntervalBuffer busyTimes = new IntervalBuffer();
+    index.addMergedBusyTimes(
+        attendee, window, (start, end, optional) -> busyTimes.add(start, end), false);
+    return busyTimes.toTimeRanges();
+  }
+}
@@ -0,0 +1,134 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventLoaderTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private EventLoader loader;
+
+  @Before
+  public void setUp() {
+    loader = new EventLoader();
+  }
+
+  @Test
+  public void loadsWhatGetEventsServes() throws IOException {
+    String json = new Gson().toJson(Events.events);
+
+    EventStore store = loader.load(new StringReader(json));
+
+    assertEquals(Arrays.asList(Events.events), store.getEvents());
+  }
+
+  @Test
+  public void skipsUnknownFields() throws IOException {
+    String json = "[{\"id\": 7, \"title\": \"Event 1\", \"attendees\": [\"Person A\"],"
+        + " \"when\": {\"start\": 480, \"duration\": 30, \"zone\": \"UTC\"}}]";
+
+    EventStore store = loader.load(new StringReader(json));
+
+    Event expected = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    assertEquals(Arrays.asList(expected), store.getEvents());
+  }
+
+  @Test
+  public void storeSharesAttendeeNamesAndIndexesEvents() throws IOException {
+    String json = "[{\"title\": \"Event 1\", \"when\": {\"start\": 480, \"duration\": 30},"
+        + " \"attendees\": [\"Person A\", \"Person B\"]},"
+        + " {\"title\": \"Event 2\", \"when\": {\"start\": 540, \"duration\": 30},"
+        + " \"attendees\": [\"Person A\"]}]";
+
+    EventStore store = loader.load(new StringReader(json));
+
+    assertSame(store.getAttendees(0).get(0), store.getAttendees(1).get(0));
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES));
+    assertEquals(expected, store.getIndex().getBusyTimes(PERSON_A));
+    assertEquals(2, store.getVersion());
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void rejectsEventWithoutTime() throws IOException {
+    loader.load(new StringReader("[{\"title\": \"Event 1\", \"attendees\": []}]"));
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void rejectsValuesOfTheWrongType() throws IOException {
+    loader.load(new StringReader("{\"title\": \"Event 1\"}"));
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void rejectsMalformedJson() throws IOException {
+    loader.load(new StringReader("[{\"title\": \"Event 1\","));
+  }
+
+  @Test
+  public void convertsZonedTimesToUtc() throws IOException {
+    // New York is five hours behind UTC in January.
+    String json = "[{\"title\": \"Event 1\", \"attendees\": [\"Person A\"],"
+        + " \"when\": {\"start\": 480, \"duration\": 30, \"zone\": \"America/New_York\"}}]";
+
+    EventStore store = loader.load(new StringReader(json));
+
+    assertEquals(TimeRange.fromStartDuration(TIME_0800AM + 5 * 60, DURATION_30_MINUTES),
+        store.getWhen(0));
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void rejectsUnknownZones() throws IOException {
+    loader.load(new StringReader("[{\"title\": \"Event 1\", \"attendees\": [],"
+        + " \"when\": {\"start\": 480, \"duration\": 30, \"zone\": \"Mars/Olympus\"}}]"));
+  }
+
+  @Test
+  public void loadsRecurringEvents() throws IOException {
+    String json = "[{\"title\": \"Standup\", \"attendees\": [\"Person A\"],"
+        + " \"when\": {\"start\": 480, \"duration\": 30},"
+        + " \"recurrence\": {\"every_days\": 1, \"except\": [1920]}}]";
+
+    EventStore store = loader.load(new StringReader(json));
+
+    assertEquals(0, store.size());
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            TimeRange.fromStartDuration(2 * TimeRange.MINUTES_PER_DAY + TIME_0800AM,
+                DURATION_30_MINUTES)),
+        store.getRecurringEvents().get(0).getOccurrences(TimeRange.fromDays(0, 3)));
+  }
+}
@@ -0,0 +1,241 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventLogTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  private static final Event EVENT_1 = new Event("Event 1",
+      TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR), Arrays.asList(PERSON_A));
+  private static final Event EVENT_2 = new Event("Event 2",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR), Arrays.asList(PERSON_A, PERSON_B));
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void changesAreReplayedWhenTheLogIsOpenedAgain() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events.wal");
+    long first;
+    long second;
+    try (EventLog log = EventLog.open(file, new SnapshotCalendar())) {
+      first = log.add(EVENT_1);
+      second = log.add(EVENT_1);
+      assertTrue(log.update(second, EVENT_2));
+      assertTrue(log.remove(first));
+      assertFalse(log.remove(first));
+    }
+
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    try (EventLog log = EventLog.open(file, calendar)) {
+      assertEquals(4, log.getReplayedCount());
+      assertNull(calendar.snapshot().getEvent(first));
+      assertEquals(EVENT_2, calendar.snapshot().getEvent(second));
+      // New ids do not reuse the replayed ones.
+      assertEquals(second + 1, log.add(EVENT_1));
+    }
+  }
+
+  @Test
+  public void partlyWrittenChangeIsCutOff() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events.wal");
+    try (EventLog log = EventLog.open(file, new SnapshotCalendar())) {
+      log.add(EVENT_1);
+      log.add(EVENT_2);
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    try (EventLog log = EventLog.open(file, calendar)) {
+      assertEquals(1, log.getReplayedCount());
+      assertEquals(1, calendar.snapshot().size());
+      log.add(EVENT_2);
+    }
+    try (EventLog log = EventLog.open(file, new SnapshotCalendar())) {
+      assertEquals(2, log.getReplayedCount());
+    }
+  }
+
+  @Test
+  public void damageBeforeIntactChangesIsNotCutOff() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events.wal");
+    try (EventLog log = EventLog.open(file, new SnapshotCalendar())) {
+      log.add(EVENT_1);
+      log.add(EVENT_2);
+      log.add(EVENT_1);
+    }
+    long size;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      size = channel.size();
+      // Flip a bit in the title of the first change.
+      ByteBuffer title = ByteBuffer.allocate(1);
+      channel.read(title, 20);
+      title.put(0, (byte) (title.get(0) ^ 1)).rewind();
+      channel.write(title, 20);
+    }
+
+    try {
+      EventLog.open(file, new SnapshotCalendar()).close();
+      fail();
+    } catch (IOException expected) {
+    }
+    assertEquals(size, Files.size(file));
+  }
+
+  @Test
+  public void concurrentWritesAreAllKept() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("events.wal");
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    try (EventLog log = EventLog.open(file, calendar)) {
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      for (int thread = 0; thread < 8; thread++) {
+        executor.execute(() -> {
+          for (int i = 0; i < 50; i++) {
+            try {
+              log.add(EVENT_1);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          }
+        });
+      }
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+
+    SnapshotCalendar replayed = new SnapshotCalendar();
+    try (EventLog log = EventLog.open(file, replayed)) {
+      assertEquals(400, log.getReplayedCount());
+    }
+    assertEquals(calendar.snapshot().getEvents(), replayed.snapshot().getEvents());
+  }
+
+  @Test
+  public void eventTooLongToLogChangesNothing() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events.wal");
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    char[] title = new char[1 << 16];
+    Arrays.fill(title, 'a');
+    Event tooLong = new Event(new String(title), EVENT_1.getWhen(), EVENT_1.getAttendees());
+    try (EventLog log = EventLog.open(file, calendar)) {
+      long id = log.add(EVENT_1);
+      try {
+        log.update(id, tooLong);
+        fail();
+      } catch (IllegalArgumentException expected) {
+      }
+      try {
+        log.add(tooLong);
+        fail();
+      } catch (IllegalArgumentException expected) {
+      }
+      assertEquals(1, calendar.snapshot().size());
+      assertEquals(EVENT_1, calendar.snapshot().getEvent(id));
+      // The log is still usable.
+      assertEquals(id + 1, log.add(EVENT_2));
+    }
+
+    try (EventLog log = EventLog.open(file, new SnapshotCalendar())) {
+      assertEquals(2, log.getReplayedCount());
+    }
+  }
+
+  @Test
+  public void changesAreVisibleOnceDurable() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events.wal");
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    try (EventLog log = EventLog.open(file, calendar)) {
+      long id = log.add(EVENT_1);
+      assertEquals(EVENT_1, calendar.snapshot().getEvent(id));
+      assertTrue(log.update(id, EVENT_2));
+      assertEquals(EVENT_2, calendar.snapshot().getEvent(id));
+      assertFalse(log.update(id + 1, EVENT_2));
+      assertTrue(log.remove(id));
+      assertNull(calendar.snapshot().getEvent(id));
+    }
+  }
+
+  @Test
+  public void checkpointReplacesTheStartingEvents() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events.wal");
+    List<Event> starting = Arrays.asList(EVENT_1, EVENT_2);
+    long added;
+    try (EventLog log = EventLog.open(file, new SnapshotCalendar(starting))) {
+      assertTrue(log.remove(1));
+      added = log.add(EVENT_1);
+      log.checkpoint();
+      assertEquals(0, Files.size(file));
+      assertTrue(log.update(2, EVENT_1));
+    }
+
+    SnapshotCalendar calendar = new SnapshotCalendar(starting);
+    try (EventLog log = EventLog.open(file, calendar)) {
+      assertEquals(1, log.getReplayedCount());
+      assertNull(calendar.snapshot().getEvent(1));
+      assertEquals(EVENT_1, calendar.snapshot().getEvent(2));
+      assertEquals(EVENT_1, calendar.snapshot().getEvent(added));
+      assertEquals(added + 1, log.add(EVENT_2));
+    }
+  }
+
+  @Test
+  public void logIsCheckpointedAsItGrows() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events.wal");
+    try (EventLog log = EventLog.open(file, new SnapshotCalendar(), 3)) {
+      for (int i = 0; i < 7; i++) {
+        log.add(EVENT_1);
+      }
+    }
+
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    try (EventLog log = EventLog.open(file, calendar, 3)) {
+      assertEquals(1, log.getReplayedCount());
+      assertEquals(7, calendar.snapshot().size());
+    }
+  }
+}
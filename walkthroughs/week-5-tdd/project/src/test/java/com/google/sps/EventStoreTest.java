@@ -0,0 +1,135 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void duplicateAttendeesAreStoredOnce() {
+    EventStore store = new EventStore();
+
+    store.add("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_B, PERSON_A, PERSON_B));
+
+    assertEquals(2, store.getAttendees(0).size());
+    assertEquals(new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A, PERSON_B)), store.get(0));
+    assertEquals(Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES)),
+        store.getIndex().getBusyTimes(PERSON_B));
+  }
+
+  @Test
+  public void indexAndTreeFollowEventsAddedAfterTheyAreBuilt() {
+    EventStore store = new EventStore();
+    store.add("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A));
+    TimeRange morning = TimeRange.fromStartDuration(TIME_0800AM, 60);
+    assertEquals(1, store.getIndex().getBusyTimes(PERSON_A).size());
+    assertEquals(1, store.getEventsOverlapping(morning).size());
+
+    store.add("Event 2", TimeRange.fromStartDuration(TIME_0800AM + 30, DURATION_30_MINUTES),
+        Arrays.asList(PERSON_A));
+
+    assertEquals(2, store.getIndex().getBusyTimes(PERSON_A).size());
+    assertEquals(2, store.getEventsOverlapping(morning).size());
+  }
+
+  @Test
+  public void queryByStoreMatchesQueryByEvents() {
+    List<Event> events = Arrays.asList(Events.events);
+    EventStore store = new EventStore(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList("Ava", "Isabella"), 30),
+        new MeetingRequest(Arrays.asList("Noah", "Liam", "Oliver", "Emma", "Logan"), 45),
+        new MeetingRequest(Arrays.asList("Nobody"), 60));
+    requests.get(0).addOptionalAttendee("Liam");
+    requests.get(0).addOptionalAttendee("Somebody");
+    requests.get(1).addOptionalAttendee("Amelia");
+
+    for (MeetingRequest request : requests) {
+      Collection<TimeRange> expected = query.query(events, request);
+      assertEquals(expected, query.query(store, request));
+    }
+  }
+
+  @Test
+  public void findsEventsOverlappingARange() {
+    EventStore store = new EventStore(Arrays.asList(Events.events));
+    TimeRange range = TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(10, 0), 60);
+
+    List<Event> expected = new ArrayList<>();
+    for (Event event : Events.events) {
+      if (event.getWhen().overlaps(range)) {
+        expected.add(event);
+      }
+    }
+    expected.sort((a, b) -> TimeRange.ORDER_BY_START.thenComparing(TimeRange.ORDER_BY_END)
+        .compare(a.getWhen(), b.getWhen()));
+    assertEquals(expected, store.getEventsOverlapping(range));
+  }
+
+  @Test
+  public void narrowWindowQueryMatchesQueryByEvents() {
+    List<Event> events = Arrays.asList(Events.events);
+    EventStore store = new EventStore(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Ava", "Isabella"), 30);
+    TimeRange window = TimeRange.fromStartEnd(
+        TimeRange.getTimeInMinutes(9, 0), TimeRange.getTimeInMinutes(15, 0), false);
+
+    assertEquals(query.query(events, request, window), query.query(store, request, window));
+  }
+
+  @Test
+  public void recurringEventsBlockEveryDayOfTheWindow() {
+    EventStore store = new EventStore();
+    store.addRecurring(new RecurringEvent("Standup",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), RecurringEvent.DAILY,
+        Arrays.asList(PERSON_A, PERSON_B)));
+    store.add("Event 1", TimeRange.fromStartDuration(TimeRange.MINUTES_PER_DAY + TIME_0800AM + 30,
+        DURATION_30_MINUTES), Arrays.asList(PERSON_C));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_C), 60);
+    TimeRange window = TimeRange.fromDays(1, 2);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    Collection<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(window.start(), window.start() + TIME_0800AM, false),
+        TimeRange.fromStartEnd(window.start() + TIME_0800AM + 60,
+            window.start() + TimeRange.MINUTES_PER_DAY + TIME_0800AM, false),
+        TimeRange.fromStartEnd(window.start() + TimeRange.MINUTES_PER_DAY + TIME_0800AM + 30,
+            window.end(), false));
+    assertEquals(expected, query.query(store, request, window));
+    assertEquals(expected, query.query(store.getIndex(), request, window));
+  }
+}
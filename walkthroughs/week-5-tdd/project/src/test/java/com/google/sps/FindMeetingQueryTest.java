@@ -403,7 +403,356 @@ public final class FindMeetingQueryTest {
         assertEquals(expectedOutput, output);
   }
 
+  @Test
+  public void maximizeKeepsOptionalAttendeesThatFit() {
+    // The all-or-nothing query drops both optional attendees because C is busy all day. Maximizing
+    // keeps B, so the slot B is busy in is not returned.
+    //
+    // Events of mandatory attendee  :       |--A--|
+    // Events of optional attendees  :                   |--B--|
+    //                                 |-------------C---------------|
+    // Day                           : |-----------------------------|
+    // Options                       : |-----|     |-----|     |-----|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.setMaximizeOptionalAttendees(true);
 
+    Collection<TimeRange> output = query.query(events, request);
 
-}
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void maximizePrefersSlotsMissingFewestOptionalAttendees() {
+    // A and B are busy in the morning, C in the afternoon. Only C misses an afternoon meeting.
+    int noon = TimeRange.getTimeInMinutes(12, 0);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, noon, false),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(noon, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.setMaximizeOptionalAttendees(true);
+
+    Collection<TimeRange> output = query.query(events, request);
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(noon, TimeRange.END_OF_DAY, true));
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void maximizeRequiresOptionalAttendeesForTheWholeMeeting() {
+    // A can only meet between 9:00 and 10:00. B is busy for the first half hour and C for the
+    // second, so a meeting at 9:00 or at 9:30 misses one of them but a meeting in between misses
+    // both.
+    //
+    // Events of mandatory attendee  : |----A----|     |----A----|
+    // Events of optional attendees  :           |-B-|
+    //                                                |-C-|
+    // Options                       :           |-1-|
+    //                                                |-2-|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 4", TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.setMaximizeOptionalAttendees(true);
+
+    Collection<TimeRange> output = query.query(events, request);
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES));
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void maximizeMatchesRegularQueryWhenEveryoneFits() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList("Ava", "Isabella"), DURATION_30_MINUTES);
+    request.addOptionalAttendee("Liam");
+    Collection<TimeRange> expectedOutput = query.query(events, request);
+    request.setMaximizeOptionalAttendees(true);
 
+    assertEquals(expectedOutput, query.query(events, request));
+    assertEquals(expectedOutput, query.query(new EventIndex(events), request));
+  }
+
+  @Test
+  public void queryAllAnswersEachRequestInOrder() {
+    Collection<Event> events = Arrays.asList(Events.events);
+    List<MeetingRequest> requests = new ArrayList<>();
+    requests.add(new MeetingRequest(Arrays.asList("Amelia", "Emma"), DURATION_30_MINUTES));
+    requests.add(new MeetingRequest(Arrays.asList("James"), DURATION_2_HOUR));
+    requests.add(new MeetingRequest(NO_ATTENDEES, DURATION_1_HOUR));
+    MeetingRequest withOptional = new MeetingRequest(Arrays.asList("Oliver"), DURATION_1_HOUR);
+    withOptional.addOptionalAttendee("Liam");
+    requests.add(withOptional);
+
+    List<Collection<TimeRange>> output = query.queryAll(events, requests);
+
+    List<Collection<TimeRange>> expectedOutput = new ArrayList<>();
+    for (MeetingRequest request : requests) {
+      expectedOutput.add(query.query(events, request));
+    }
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void windowSpanningSeveralDays() {
+    // A works from 9:00 to 17:00 on both days. The free time overnight is a single option that
+    // crosses midnight.
+    //
+    // Events  :     |--A--|           |--A--|
+    // Window  : |--------day 0--------|--------day 1--------|
+    // Options : |---|     |-----------|     |---------------|
+    Collection<Event> events = Arrays.asList(
+        new Event("Day 0", TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(0, 9, 0),
+            TimeRange.getTimeInMinutes(0, 17, 0), false), Arrays.asList(PERSON_A)),
+        new Event("Day 1", TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(1, 9, 0),
+            TimeRange.getTimeInMinutes(1, 17, 0), false), Arrays.asList(PERSON_A)),
+        new Event("Day 2", TimeRange.fromDays(2, 1), Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    TimeRange window = TimeRange.fromDays(0, 2);
+
+    Collection<TimeRange> expectedOutput = Arrays.asList(
+        TimeRange.fromStartEnd(0, TimeRange.getTimeInMinutes(0, 9, 0), false),
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(0, 17, 0),
+            TimeRange.getTimeInMinutes(1, 9, 0), false),
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(1, 17, 0), window.end(), false));
+    assertEquals(expectedOutput, query.query(events, request, window));
+    assertEquals(expectedOutput, query.query(new EventIndex(events), request, window));
+  }
+
+  @Test
+  public void windowClipsEventsThatStartBeforeIt() {
+    // An event that runs from the evening of day 0 into the morning of day 1 blocks the start of a
+    // window that only covers day 1.
+    Collection<Event> events = Arrays.asList(new Event("Overnight",
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(0, 20, 0),
+            TimeRange.getTimeInMinutes(1, 8, 0), false),
+        Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    TimeRange window = TimeRange.fromDays(1, 1);
+
+    Collection<TimeRange> expectedOutput = Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.getTimeInMinutes(1, 8, 0), window.end(), false));
+    assertEquals(expectedOutput, query.query(events, request, window));
+    assertEquals(expectedOutput, query.query(new EventIndex(events), request, window));
+  }
+
+  /** Person A is busy from 8:00 to 8:30 and from 9:00 to 9:30. */
+  private static Collection<Event> twoMorningEventsOfPersonA() {
+    return Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)));
+  }
+
+  @Test
+  public void rankedByEarliestStartKeepsFirstSlots() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setMaxResults(2);
+
+    Collection<TimeRange> output = query.query(twoMorningEventsOfPersonA(), request);
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false));
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void rankedByClosestToPreferredTime() {
+    // A meeting can start at 9:30 in the last slot, 15 minutes from the preferred time, and at
+    // 8:30 in the middle slot, 45 minutes from it.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setMaxResults(2);
+    request.setRanking(SlotRanking.CLOSEST_TO_PREFERRED_TIME);
+    request.setPreferredTime(TimeRange.getTimeInMinutes(9, 15));
+
+    Collection<TimeRange> output =
+        query.query(new EventIndex(twoMorningEventsOfPersonA()), request);
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false));
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void rankedByFewestOptionalAttendeesMissing() {
+    // C is busy all day, so no slot fits everyone. B is busy in the morning, so a meeting from noon
+    // on misses only C.
+    //
+    // Events of optional attendees  : |------B------|
+    //                                 |-------------C---------------|
+    // Day                           : |-----------------------------|
+    // Options                       :               |---------------|
+    int noon = TimeRange.getTimeInMinutes(12, 0);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, noon, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.setMaxResults(1);
+    request.setRanking(SlotRanking.FEWEST_OPTIONAL_ATTENDEES_MISSING);
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(noon, TimeRange.END_OF_DAY, true));
+    assertEquals(expectedOutput, query.query(events, request));
+    assertEquals(expectedOutput, query.query(new EventIndex(events), request));
+  }
+
+  @Test
+  public void rankedMaximizeOnlyReturnsTheBestSlots() {
+    // Same calendar as above. Asking for more results than there are best slots does not pad the
+    // answer with slots that more optional attendees miss.
+    int noon = TimeRange.getTimeInMinutes(12, 0);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, noon, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.setMaximizeOptionalAttendees(true);
+    request.setMaxResults(5);
+
+    Collection<TimeRange> output = query.query(events, request);
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(noon, TimeRange.END_OF_DAY, true));
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void rankedWithCustomScorer() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setMaxResults(1);
+    SlotScorer longestFirst = (meeting, slot, missing) -> -slot.duration();
+
+    Collection<TimeRange> output = query.queryRanked(
+        twoMorningEventsOfPersonA(), request, TimeRange.WHOLE_DAY, longestFirst);
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void searchWindowLimitsSlots() {
+    int fivePm = TimeRange.getTimeInMinutes(17, 0);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setSearchWindow(TimeRange.fromStartEnd(TIME_0900AM, fivePm, false));
+
+    Collection<TimeRange> output = query.query(twoMorningEventsOfPersonA(), request);
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0930AM, fivePm, false));
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void mandatoryAttendeesOnlyMeetDuringWorkingHours() {
+    // A works from 8:00 to 17:00 and B from 10:00 to 18:00. A is busy from 11:00 to noon.
+    int noon = TimeRange.getTimeInMinutes(12, 0);
+    int fivePm = TimeRange.getTimeInMinutes(17, 0);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_1100AM, noon, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.setWorkingHours(PERSON_A, TimeRange.fromStartEnd(TIME_0800AM, fivePm, false));
+    request.setWorkingHours(
+        PERSON_B, TimeRange.fromStartEnd(TIME_1000AM, TimeRange.getTimeInMinutes(18, 0), false));
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            TimeRange.fromStartEnd(noon, fivePm, false));
+    assertEquals(expectedOutput, query.query(events, request));
+    assertEquals(expectedOutput, query.query(new EventIndex(events), request));
+    assertEquals(expectedOutput, query.query(new EventStore(events), request));
+  }
+
+  @Test
+  public void optionalAttendeeOutsideWorkingHoursIsDropped() {
+    // C only works in the morning, but A is busy then, so the meeting goes ahead without C.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+    request.setWorkingHours(
+        PERSON_C, TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false));
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    assertEquals(expectedOutput, query.query(events, request));
+    request.setMaximizeOptionalAttendees(true);
+    assertEquals(expectedOutput, query.query(new EventIndex(events), request));
+  }
+
+  @Test
+  public void workingHoursRunPastMidnight() {
+    // A works nights from 22:00 to 06:00, searched over two days.
+    int tenPm = TimeRange.getTimeInMinutes(22, 0);
+    int sixAm = TimeRange.getTimeInMinutes(6, 0);
+    int day = TimeRange.MINUTES_PER_DAY;
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.setWorkingHours(PERSON_A, TimeRange.fromStartDuration(tenPm, 8 * 60));
+
+    Collection<TimeRange> output = query.query(NO_EVENTS, request, TimeRange.fromDays(0, 2));
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(0, sixAm, false),
+            TimeRange.fromStartEnd(tenPm, day + sixAm, false),
+            TimeRange.fromStartEnd(day + tenPm, 2 * day, false));
+    assertEquals(expectedOutput, output);
+  }
+
+  @Test
+  public void workingHoursFollowTheAttendeesTimeZone() {
+    // A works from 9:00 to 17:00 in Tokyo, which is 0:00 to 8:00 UTC in January. B works from
+    // 7:00 to 17:00 UTC.
+    int fivePm = TimeRange.getTimeInMinutes(17, 0);
+    int sevenAm = TimeRange.getTimeInMinutes(7, 0);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.setWorkingHours(PERSON_A, TimeRange.fromStartEnd(TIME_0900AM, fivePm, false));
+    request.setTimeZone(PERSON_A, "Asia/Tokyo");
+    request.setWorkingHours(PERSON_B, TimeRange.fromStartEnd(sevenAm, fivePm, false));
+
+    Collection<TimeRange> output = query.query(NO_EVENTS, request);
+
+    Collection<TimeRange> expectedOutput =
+        Arrays.asList(TimeRange.fromStartEnd(sevenAm, TIME_0800AM, false));
+    assertEquals(expectedOutput, output);
+  }
+}
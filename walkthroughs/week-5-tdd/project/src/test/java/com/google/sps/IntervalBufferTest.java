@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalBufferTest {
+
+  @Test
+  public void sortMatchesComparatorSort() {
+    // Few distinct start times so that the sort has to deal with many ties.
+    Random random = new Random(7);
+    IntervalBuffer buffer = new IntervalBuffer(1);
+    List<TimeRange> expected = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      int start = 30 * random.nextInt(48);
+      int end = start + 1 + random.nextInt(120);
+      buffer.add(start, end);
+      expected.add(TimeRange.fromStartEnd(start, end, false));
+    }
+
+    buffer.sort();
+
+    Collections.sort(expected, TimeRange.ORDER_BY_START.thenComparing(TimeRange.ORDER_BY_END));
+    assertEquals(expected, buffer.toTimeRanges());
+  }
+
+  @Test
+  public void coalesceMergesOverlappingAndTouchingIntervals() {
+    // Input  : |--|  |----|
+    //               |--|  |--|   |--|
+    //                 |-|
+    // Output : |--|  |-------|   |--|
+    IntervalBuffer buffer = new IntervalBuffer();
+    buffer.add(600, 660);
+    buffer.add(0, 60);
+    buffer.add(120, 240);
+    buffer.add(180, 240);
+    buffer.add(200, 210);
+    buffer.add(240, 300);
+
+    buffer.sort();
+    buffer.coalesce();
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(0, 60, false), TimeRange.fromStartEnd(120, 300, false),
+            TimeRange.fromStartEnd(600, 660, false)),
+        buffer.toTimeRanges());
+  }
+
+  @Test
+  public void emptyIntervalsAreIgnored() {
+    IntervalBuffer buffer = new IntervalBuffer();
+    buffer.add(60, 60);
+    buffer.add(90, 30);
+
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  public void mergeSortedInterleavesRunsInOrder() {
+    IntervalBuffer first = new IntervalBuffer();
+    first.add(0, 30);
+    first.add(120, 180);
+    IntervalBuffer second = new IntervalBuffer();
+    second.add(0, 15);
+    second.add(60, 90);
+    second.add(300, 330);
+    IntervalBuffer merged = new IntervalBuffer();
+
+    IntervalBuffer.mergeSorted(
+        new IntervalBuffer[] {first, new IntervalBuffer(), second}, false,
+        (start, end, optional) -> merged.add(start, end));
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(0, 15, false), TimeRange.fromStartEnd(0, 30, false),
+            TimeRange.fromStartEnd(60, 90, false), TimeRange.fromStartEnd(120, 180, false),
+            TimeRange.fromStartEnd(300, 330, false)),
+        merged.toTimeRanges());
+  }
+}
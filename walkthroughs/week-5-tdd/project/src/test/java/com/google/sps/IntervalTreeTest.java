@@ -0,0 +1,111 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalTreeTest {
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private IntervalTree<String> tree;
+
+  @Before
+  public void setUp() {
+    tree = new IntervalTree<>();
+  }
+
+  @Test
+  public void findsOverlappingRangesInStartOrder() {
+    tree.add(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), "C");
+    tree.add(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false), "A");
+    tree.add(TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false), "B");
+
+    assertEquals(Arrays.asList("B", "C"),
+        tree.findOverlapping(TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false)));
+    assertEquals(Arrays.asList("A", "B"), tree.findContaining(TIME_0800AM));
+    assertEquals(Arrays.asList(), tree.findContaining(TIME_1100AM));
+  }
+
+  @Test
+  public void emptyRangeIsFoundAtItsStart() {
+    tree.add(TimeRange.fromStartDuration(TIME_1000AM, 0), "A");
+
+    assertEquals(Arrays.asList("A"),
+        tree.findOverlapping(TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false)));
+    assertEquals(Arrays.asList(),
+        tree.findOverlapping(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)));
+  }
+
+  @Test
+  public void removesOneEntryOfDuplicateRanges() {
+    TimeRange range = TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false);
+    tree.add(range, "A");
+    tree.add(range, "B");
+    tree.add(range, "A");
+
+    assertTrue(tree.remove(range, "A"));
+    assertFalse(tree.remove(range, "C"));
+
+    assertEquals(2, tree.size());
+    assertEquals(Arrays.asList("B", "A"), tree.findContaining(TIME_0800AM));
+  }
+
+  @Test
+  public void matchesLinearScanOnRandomRanges() {
+    Random random = new Random(42);
+    List<TimeRange> ranges = new ArrayList<>();
+    List<Integer> values = new ArrayList<>();
+    IntervalTree<Integer> numbers = new IntervalTree<>();
+    for (int i = 0; i < 2000; i++) {
+      if (!ranges.isEmpty() && random.nextInt(3) == 0) {
+        int victim = random.nextInt(ranges.size());
+        assertTrue(numbers.remove(ranges.remove(victim), values.remove(victim)));
+      } else {
+        TimeRange range = TimeRange.fromStartDuration(random.nextInt(1400), 1 + random.nextInt(90));
+        ranges.add(range);
+        values.add(i);
+        numbers.add(range, i);
+      }
+
+      TimeRange query = TimeRange.fromStartDuration(random.nextInt(1400), 1 + random.nextInt(60));
+      List<Integer> expected = new ArrayList<>();
+      for (int k = 0; k < ranges.size(); k++) {
+        if (ranges.get(k).overlaps(query)) {
+          expected.add(values.get(k));
+        }
+      }
+      List<Integer> actual = numbers.findOverlapping(query);
+      expected.sort(null);
+      actual.sort(null);
+      assertEquals(expected, actual);
+      assertEquals(ranges.size(), numbers.size());
+    }
+  }
+}
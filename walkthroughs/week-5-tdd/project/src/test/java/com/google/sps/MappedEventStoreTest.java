@@ -0,0 +1,85 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MappedEventStoreTest {
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  private MappedEventStore writeAndOpen(List<Event> events) throws IOException {
+    Path file = folder.newFile().toPath();
+    MappedEventStore.write(events, file);
+    return MappedEventStore.open(file);
+  }
+
+  @Test
+  public void eventsSurviveTheRoundTrip() throws IOException {
+    Event later = new Event("Lunch", TimeRange.fromStartDuration(720, 60),
+        Arrays.asList("Zoë", "Ava"));
+    Event earlier = new Event("Standup", TimeRange.fromStartDuration(540, 15),
+        Arrays.asList("Ava"));
+
+    MappedEventStore store = writeAndOpen(Arrays.asList(later, earlier));
+
+    assertEquals(2, store.size());
+    assertEquals(earlier, store.get(0));
+    assertEquals(later, store.get(1));
+    assertEquals("Lunch", store.getTitle(1));
+  }
+
+  @Test
+  public void queryByMappedStoreMatchesQueryByEvents() throws IOException {
+    List<Event> events = Arrays.asList(Events.events);
+    MappedEventStore store = writeAndOpen(events);
+    FindMeetingQuery query = new FindMeetingQuery();
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList("Ava", "Isabella"), 30),
+        new MeetingRequest(Arrays.asList("Noah", "Liam", "Oliver", "Emma", "Logan"), 45),
+        new MeetingRequest(Arrays.asList("Nobody"), 60));
+    requests.get(0).addOptionalAttendee("Liam");
+    requests.get(0).addOptionalAttendee("Somebody");
+    requests.get(1).addOptionalAttendee("Amelia");
+    requests.get(1).setMaximizeOptionalAttendees(true);
+    requests.get(2).setMaxResults(2);
+
+    for (TimeRange window : Arrays.asList(TimeRange.WHOLE_DAY, TimeRange.fromStartEnd(600, 900,
+        false))) {
+      for (MeetingRequest request : requests) {
+        assertEquals(query.query(events, request, window), query.query(store, request, window));
+      }
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsFilesOfAnotherFormat() throws IOException {
+    Path file = folder.newFile().toPath();
+    Files.write(file, "[{\"title\": \"Standup\"}]".getBytes("UTF-8"));
+
+    MappedEventStore.open(file);
+  }
+}
@@ -14,6 +14,7 @@
 
 package com.google.sps;
 
+import com.google.gson.Gson;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -44,4 +45,24 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
-}
\ No newline at end of file
+
+  @Test(expected = IllegalArgumentException.class)
+  public void workingHoursCannotBeLongerThanADay() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setWorkingHours(
+        PERSON_A, TimeRange.fromStartDuration(0, TimeRange.MINUTES_PER_DAY + 1));
+  }
+
+  @Test
+  public void requestFromJsonWithNullAttendeesIsInvalid() {
+    Gson gson = new Gson();
+
+    Assert.assertTrue(
+        gson.fromJson("{\"attendees\":[\"Person A\"],\"duration\":60}", MeetingRequest.class)
+            .isValid());
+    Assert.assertFalse(
+        gson.fromJson("{\"attendees\":null,\"duration\":60}", MeetingRequest.class).isValid());
+    Assert.assertFalse(
+        gson.fromJson("{\"attendees\":[\"Person A\"]}", MeetingRequest.class).isValid());
+  }
+}
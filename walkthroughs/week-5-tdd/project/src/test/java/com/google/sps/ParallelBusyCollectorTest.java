@@ -0,0 +1,121 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ParallelBusyCollectorTest {
+  private static final int EVENT_COUNT = 20_000;
+  private static final int PEOPLE = 200;
+
+  private final Random random = new Random(11);
+
+  @Test
+  public void parallelEventScanMatchesSerialScan() {
+    List<Event> events = randomEvents();
+    Set<String> mandatory = new HashSet<>(Arrays.asList(person(1), person(2)));
+    Set<String> optional = new HashSet<>(Arrays.asList(person(3)));
+
+    SlotSweep serial = new SlotSweep();
+    FindMeetingQuery.addBusyTimes(
+        events, mandatory, optional, TimeRange.WHOLE_DAY, serial, Integer.MAX_VALUE);
+    SlotSweep parallel = new SlotSweep();
+    FindMeetingQuery.addBusyTimes(events, mandatory, optional, TimeRange.WHOLE_DAY, parallel, 0);
+
+    assertSameSlots(serial, parallel);
+  }
+
+  @Test
+  public void parallelStoreScanMatchesSerialScan() {
+    EventStore store = new EventStore(randomEvents());
+    AttendeeDictionary dictionary = store.getDictionary();
+    long[] mandatory = dictionary.toBitset(Arrays.asList(person(4), person(5)));
+    long[] optional = dictionary.toBitset(Arrays.asList(person(6), person(7)));
+
+    SlotSweep serial = new SlotSweep();
+    store.addBusyTimes(mandatory, optional, TimeRange.WHOLE_DAY, serial, Integer.MAX_VALUE);
+    SlotSweep parallel = new SlotSweep();
+    store.addBusyTimes(mandatory, optional, TimeRange.WHOLE_DAY, parallel, 0);
+
+    assertSameSlots(serial, parallel);
+  }
+
+  @Test
+  public void collectHandsOverSortedIntervals() {
+    List<TimeRange> added = Collections.synchronizedList(new ArrayList<>());
+    List<TimeRange> collected = new ArrayList<>();
+
+    ParallelBusyCollector.collect(EVENT_COUNT, (from, to, sink) -> {
+      for (int i = from; i < to; i++) {
+        // A third of the intervals are empty and must be dropped.
+        int start = (i * 7919) % TimeRange.END_OF_DAY;
+        sink.addBusy(start, start + i % 3, false);
+        added.add(TimeRange.fromStartDuration(start, i % 3));
+      }
+    }, (start, end, optional) -> collected.add(TimeRange.fromStartEnd(start, end, false)));
+
+    for (int i = 1; i < collected.size(); i++) {
+      assertTrue(collected.get(i - 1).start() <= collected.get(i).start());
+    }
+    IntervalBuffer expected = new IntervalBuffer();
+    added.forEach(expected::add);
+    expected.sort();
+    expected.coalesce();
+    IntervalBuffer actual = new IntervalBuffer();
+    collected.forEach(actual::add);
+    actual.sort();
+    actual.coalesce();
+    assertEquals(expected.toTimeRanges(), actual.toTimeRanges());
+  }
+
+  private List<Event> randomEvents() {
+    List<Event> events = new ArrayList<>(EVENT_COUNT);
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      int start = 5 * random.nextInt(TimeRange.MINUTES_PER_DAY / 5);
+      int duration = Math.min(15 + random.nextInt(106), TimeRange.MINUTES_PER_DAY - start);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          Arrays.asList(person(random.nextInt(PEOPLE)), person(random.nextInt(PEOPLE)))));
+    }
+    return events;
+  }
+
+  private static void assertSameSlots(SlotSweep expected, SlotSweep actual) {
+    SlotSweep.Result expectedResult =
+        expected.run(TimeRange.START_OF_DAY, TimeRange.END_OF_DAY + 1, 15);
+    List<TimeRange> expectedAll = expectedResult.allAttendees().toTimeRanges();
+    List<TimeRange> expectedMandatory = expectedResult.mandatoryOnly().toTimeRanges();
+    SlotSweep.Result actualResult =
+        actual.run(TimeRange.START_OF_DAY, TimeRange.END_OF_DAY + 1, 15);
+    assertEquals(expectedAll, actualResult.allAttendees().toTimeRanges());
+    assertEquals(expectedMandatory, actualResult.mandatoryOnly().toTimeRanges());
+  }
+
+  private static String person(int i) {
+    return "Person " + i;
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/** */
+@RunWith(JUnit4.class)
+public final class PersistentHashMapTest {
+  /** A key whose hash only takes a few values, so that keys collide all the way down. */
+  private static final class CollidingKey {
+    private final int value;
+
+    CollidingKey(int value) {
+      this.value = value;
+    }
+
+    @Override
+    public int hashCode() {
+      return value % 3;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof CollidingKey && ((CollidingKey) other).value == value;
+    }
+  }
+
+  @Test
+  public void matchesHashMapUnderRandomUpdates() {
+    Random random = new Random(7);
+    Map<Integer, Integer> expected = new HashMap<>();
+    PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+
+    for (int i = 0; i < 20_000; i++) {
+      int key = random.nextInt(2_000) * 33;
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.without(key);
+      } else {
+        expected.put(key, i);
+        map = map.with(key, i);
+      }
+    }
+
+    assertEquals(expected.size(), map.size());
+    Map<Integer, Integer> actual = new HashMap<>();
+    map.forEach(actual::put);
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void collidingKeysAreKeptApart() {
+    PersistentHashMap<CollidingKey, Integer> map = PersistentHashMap.empty();
+    for (int i = 0; i < 10; i++) {
+      map = map.with(new CollidingKey(i), i);
+    }
+    map = map.without(new CollidingKey(4));
+
+    assertEquals(9, map.size());
+    assertEquals(Integer.valueOf(7), map.get(new CollidingKey(7)));
+    assertNull(map.get(new CollidingKey(4)));
+  }
+
+  @Test
+  public void updatesLeaveOldVersionsAlone() {
+    PersistentHashMap<String, Integer> before = PersistentHashMap.<String, Integer>empty()
+        .with("a", 1)
+        .with("b", 2);
+
+    PersistentHashMap<String, Integer> after = before.with("a", 10).without("b");
+
+    assertEquals(Integer.valueOf(1), before.get("a"));
+    assertEquals(Integer.valueOf(2), before.get("b"));
+    assertEquals(Integer.valueOf(10), after.get("a"));
+    assertNull(after.get("b"));
+    assertSame(after, after.without("b"));
+  }
+}
@@ -0,0 +1,86 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final int DAY = TimeRange.MINUTES_PER_DAY;
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_15_MINUTES = 15;
+
+  private static final TimeRange STANDUP =
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_15_MINUTES);
+
+  @Test
+  public void occurrencesOnlyCoverTheWindow() {
+    RecurringEvent standup =
+        new RecurringEvent("Standup", STANDUP, RecurringEvent.DAILY, Arrays.asList(PERSON_A));
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(2 * DAY + TIME_0900AM, DURATION_15_MINUTES),
+            TimeRange.fromStartDuration(3 * DAY + TIME_0900AM, DURATION_15_MINUTES)),
+        standup.getOccurrences(TimeRange.fromStartEnd(2 * DAY, 4 * DAY, false)));
+  }
+
+  @Test
+  public void farFutureWindowOnlyVisitsNearbyOccurrences() {
+    RecurringEvent standup =
+        new RecurringEvent("Standup", STANDUP, RecurringEvent.DAILY, Arrays.asList(PERSON_A));
+    int day = 1_000_000;
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(day * DAY + TIME_0900AM, DURATION_15_MINUTES)),
+        standup.getOccurrences(TimeRange.fromDays(day, 1)));
+  }
+
+  @Test
+  public void skipsExceptionsAndStopsAtUntil() {
+    // Weekly, skipping the second week and ending before the fourth.
+    RecurringEvent review = new RecurringEvent("Review", STANDUP, RecurringEvent.WEEKLY,
+        Arrays.asList(PERSON_A), null, 21 * DAY, Arrays.asList(7 * DAY + TIME_0900AM));
+
+    assertEquals(
+        Arrays.asList(STANDUP,
+            TimeRange.fromStartDuration(14 * DAY + TIME_0900AM, DURATION_15_MINUTES)),
+        review.getOccurrences(TimeRange.fromDays(0, 60)));
+  }
+
+  @Test
+  public void keepsTheWallClockTimeAcrossDaylightSavingTime() {
+    // 9:00 in Paris is 8:00 UTC in January and 7:00 UTC in July.
+    int julyFirst = 182;
+    RecurringEvent standup = new RecurringEvent("Standup", STANDUP, RecurringEvent.DAILY,
+        Arrays.asList(PERSON_A), "Europe/Paris", Integer.MAX_VALUE, Collections.emptySet());
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM - 60, DURATION_15_MINUTES)),
+        standup.getOccurrences(TimeRange.fromDays(0, 1)));
+    assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartDuration(julyFirst * DAY + TIME_0900AM - 120, DURATION_15_MINUTES)),
+        standup.getOccurrences(TimeRange.fromDays(julyFirst, 1)));
+  }
+}
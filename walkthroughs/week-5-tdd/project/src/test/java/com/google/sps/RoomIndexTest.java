@@ -0,0 +1,164 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final Room SMALL = new Room("Small", 2);
+  private static final Room MEDIUM = new Room("Medium", 6);
+  private static final Room LARGE = new Room("Large", 20);
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  private FindMeetingQuery query;
+  private RoomIndex rooms;
+  private EventIndex index;
+
+  @Before
+  public void setUp() {
+    query = new FindMeetingQuery();
+    rooms = new RoomIndex();
+    rooms.addRoom(SMALL);
+    rooms.addRoom(MEDIUM);
+    rooms.addRoom(LARGE);
+    index = new EventIndex();
+  }
+
+  @Test
+  public void smallestFreeRoomIsPicked() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR);
+
+    assertEquals(Arrays.asList(new RoomSlot(TimeRange.WHOLE_DAY, SMALL)),
+        query.queryWithRooms(index, rooms, request));
+  }
+
+  @Test
+  public void roomsThatAreTooSmallAreSkipped() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_1_HOUR);
+    request.setRoomCapacity(7);
+
+    assertEquals(Arrays.asList(new RoomSlot(TimeRange.WHOLE_DAY, LARGE)),
+        query.queryWithRooms(index, rooms, request));
+  }
+
+  @Test
+  public void busyRoomsAreWorkedAround() {
+    // Small : |--free--|       |------free------|
+    // Medium: |---free----|          |---free---|
+    // Answer: |--Medium---|
+    //                  |--Small--------------|
+    rooms.book("Small", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+    rooms.book("Medium", TimeRange.fromStartEnd(TIME_1000AM - 30, TIME_1100AM, false));
+    rooms.book("Large", TimeRange.WHOLE_DAY);
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setRoomCapacity(2);
+
+    assertEquals(
+        Arrays.asList(
+            new RoomSlot(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM - 30, false),
+                MEDIUM),
+            new RoomSlot(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true), SMALL)),
+        query.queryWithRooms(index, rooms, request));
+  }
+
+  @Test
+  public void peopleAndRoomsMustBothBeFree() {
+    index.add(new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM,
+        false), Arrays.asList(PERSON_A)));
+    rooms.book("Small", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    rooms.book("Medium", TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+    rooms.book("Large", TimeRange.WHOLE_DAY);
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    assertEquals(
+        Arrays.asList(
+            new RoomSlot(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), MEDIUM)),
+        query.queryWithRooms(index, rooms, request));
+  }
+
+  @Test
+  public void noRoomMeansNoSlot() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setRoomCapacity(21);
+
+    assertEquals(Collections.emptyList(), query.queryWithRooms(index, rooms, request));
+  }
+
+  @Test
+  public void cancellingFreesTheRoom() {
+    TimeRange booking = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+    rooms.book("Small", booking);
+    assertEquals(Arrays.asList(booking), rooms.getBookings("Small"));
+
+    assertTrue(rooms.cancel("Small", booking));
+    assertFalse(rooms.cancel("Small", booking));
+    assertEquals(Collections.emptyList(), rooms.getBookings("Small"));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    assertEquals(Arrays.asList(new RoomSlot(TimeRange.WHOLE_DAY, SMALL)),
+        query.queryWithRooms(index, rooms, request));
+  }
+
+  @Test
+  public void cancellingABookingBeforeTheEpochKeepsTheOthers() {
+    rooms.book("Small", TimeRange.fromStartEnd(-120, -60, false));
+    rooms.book("Small", TimeRange.fromStartEnd(-90, -30, false));
+    rooms.book("Small", TimeRange.fromStartEnd(-45, 0, false));
+
+    assertTrue(rooms.cancel("Small", TimeRange.fromStartEnd(-90, -30, false)));
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(-120, -60, false),
+            TimeRange.fromStartEnd(-45, 0, false)),
+        rooms.getBookings("Small"));
+  }
+
+  @Test
+  public void manyCapacityBucketsAreSearched() {
+    RoomIndex manyRooms = new RoomIndex();
+    for (int bucket = 0; bucket < 16; bucket++) {
+      manyRooms.addRoom(new Room("Room " + bucket, 1 << bucket));
+    }
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    assertEquals(Arrays.asList(new RoomSlot(TimeRange.WHOLE_DAY, new Room("Room 0", 1))),
+        query.queryWithRooms(index, manyRooms, request));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void roomNamesAreUnique() {
+    rooms.addRoom(new Room("Small", 4));
+  }
+}
@@ -0,0 +1,224 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the scenarios of {@code FindMeetingQueryTest} directly against the sweep engine and checks
+ * both answers it produces.
+ */
+@RunWith(JUnit4.class)
+public final class SlotSweepTest {
+  private static final boolean MANDATORY = false;
+  private static final boolean OPTIONAL = true;
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0845AM = TimeRange.getTimeInMinutes(8, 45);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+  private static final int DURATION_90_MINUTES = 90;
+
+  private SlotSweep sweep;
+
+  @Before
+  public void setUp() {
+    sweep = new SlotSweep();
+  }
+
+  private SlotSweep.Result runWholeDay(long duration) {
+    return sweep.run(TimeRange.START_OF_DAY, TimeRange.WHOLE_DAY.end(), duration);
+  }
+
+  @Test
+  public void noBusyIntervals() {
+    SlotSweep.Result result = runWholeDay(DURATION_60_MINUTES);
+
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+    assertEquals(expected, result.allAttendees().toTimeRanges());
+    assertEquals(expected, result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void intervalSplitsDay() {
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES), MANDATORY);
+
+    SlotSweep.Result result = runWholeDay(DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+    assertEquals(expected, result.allAttendees().toTimeRanges());
+    assertEquals(expected, result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void overlappingIntervals() {
+    // Events  :       |--A--|
+    //                     |--B--|
+    // Day     : |---------------------|
+    // Options : |--1--|         |--2--|
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0830AM, DURATION_60_MINUTES), MANDATORY);
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), MANDATORY);
+
+    SlotSweep.Result result = runWholeDay(DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    assertEquals(expected, result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void nestedIntervals() {
+    // Events  :       |----A----|
+    //                   |--B--|
+    // Day     : |---------------------|
+    // Options : |--1--|         |--2--|
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0830AM, DURATION_90_MINUTES), MANDATORY);
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), MANDATORY);
+
+    SlotSweep.Result result = runWholeDay(DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+    assertEquals(expected, result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void justEnoughRoom() {
+    // Events  : |--A--|     |----A----|
+    // Day     : |---------------------|
+    // Options :       |-----|
+    sweep.addBusy(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false), MANDATORY);
+    sweep.addBusy(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true), MANDATORY);
+
+    SlotSweep.Result result = runWholeDay(DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES));
+    assertEquals(expected, result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void notEnoughRoom() {
+    sweep.addBusy(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false), MANDATORY);
+    sweep.addBusy(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true), MANDATORY);
+
+    SlotSweep.Result result = runWholeDay(DURATION_60_MINUTES);
+
+    assertEquals(Arrays.asList(), result.mandatoryOnly().toTimeRanges());
+    assertEquals(Arrays.asList(), result.allAttendees().toTimeRanges());
+  }
+
+  @Test
+  public void optionalAttendeeBusyAllDay() {
+    // Mandatory :        |--A--|     |--B--|
+    // Optional  :  |-------------C---------------|
+    // All       :  (none)
+    // Mandatory :  |--1--|     |--2--|     |--3--|
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), MANDATORY);
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), MANDATORY);
+    sweep.addBusy(TimeRange.WHOLE_DAY, OPTIONAL);
+
+    SlotSweep.Result result = runWholeDay(DURATION_30_MINUTES);
+
+    assertEquals(Arrays.asList(), result.allAttendees().toTimeRanges());
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true)),
+        result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void optionalAttendeeFillsGap() {
+    // Mandatory :        |--A--|     |--B--|
+    // Optional  :              |--C--|
+    // All       :  |--1--|                 |--2--|
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), MANDATORY);
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), MANDATORY);
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES), OPTIONAL);
+
+    SlotSweep.Result result = runWholeDay(DURATION_30_MINUTES);
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true)),
+        result.allAttendees().toTimeRanges());
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true)),
+        result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void optionalAttendeeShrinksOnlySlot() {
+    // Mandatory : |--A--|     |----A----|
+    // Optional  :       |-B-|
+    // Mandatory :       |-----|
+    sweep.addBusy(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false), MANDATORY);
+    sweep.addBusy(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true), MANDATORY);
+    sweep.addBusy(TimeRange.fromStartEnd(TIME_0830AM, TIME_0845AM, true), OPTIONAL);
+
+    SlotSweep.Result result = runWholeDay(DURATION_30_MINUTES);
+
+    assertEquals(Arrays.asList(), result.allAttendees().toTimeRanges());
+    assertEquals(Arrays.asList(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES)),
+        result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void onlyOptionalAttendees() {
+    // Optional  :       |-A-||-B-|    |--A--|
+    // All       : |-----|        |----|     |------|
+    // Mandatory : |------------------------------------|
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), OPTIONAL);
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES), OPTIONAL);
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES), OPTIONAL);
+
+    SlotSweep.Result result = runWholeDay(DURATION_60_MINUTES);
+
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true)),
+        result.allAttendees().toTimeRanges());
+    assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), result.mandatoryOnly().toTimeRanges());
+  }
+
+  @Test
+  public void zeroDurationIntervalDoesNotSplitSlot() {
+    sweep.addBusy(TimeRange.fromStartDuration(TIME_0900AM, 0), MANDATORY);
+
+    SlotSweep.Result result = runWholeDay(DURATION_30_MINUTES);
+
+    assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), result.mandatoryOnly().toTimeRanges());
+  }
+}
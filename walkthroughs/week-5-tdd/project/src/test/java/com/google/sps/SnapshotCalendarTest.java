@@ -0,0 +1,265 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SnapshotCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  @Test
+  public void snapshotsDoNotSeeLaterWrites() {
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    long id = calendar.add(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR), Arrays.asList(PERSON_A)));
+    CalendarSnapshot before = calendar.snapshot();
+
+    Event moved = new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A, PERSON_B));
+    assertTrue(calendar.update(id, moved));
+
+    assertEquals(Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR)),
+        before.getMergedBusyTimes(PERSON_A));
+    assertEquals(Collections.emptyList(), before.getMergedBusyTimes(PERSON_B));
+    CalendarSnapshot after = calendar.snapshot();
+    assertEquals(moved, after.getEvent(id));
+    assertEquals(Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR)),
+        after.getMergedBusyTimes(PERSON_A));
+    assertTrue(after.getVersion() > before.getVersion());
+  }
+
+  @Test
+  public void removingAnEventFreesItsAttendees() {
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    long first = calendar.add(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR), Arrays.asList(PERSON_A)));
+    calendar.add(new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0800AM + DURATION_30_MINUTES, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A)));
+
+    assertTrue(calendar.remove(first));
+    assertFalse(calendar.remove(first));
+    assertFalse(calendar.update(first, new Event("Event 1", TimeRange.WHOLE_DAY,
+        Arrays.asList(PERSON_A))));
+
+    assertNull(calendar.snapshot().getEvent(first));
+    assertEquals(1, calendar.snapshot().size());
+    assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0800AM + DURATION_30_MINUTES,
+            DURATION_1_HOUR)),
+        calendar.snapshot().getMergedBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void removingAnEventThatTakesNoTimeKeepsOtherBusyTimes() {
+    Event empty = new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, 0),
+        Arrays.asList(PERSON_A));
+    Event busy = new Event("Event 2", TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A));
+    SnapshotCalendar calendar = new SnapshotCalendar(Arrays.asList(empty, busy));
+    assertEquals(Arrays.asList(busy.getWhen()), calendar.snapshot().getMergedBusyTimes(PERSON_A));
+
+    assertTrue(calendar.remove(1));
+
+    assertEquals(Arrays.asList(busy.getWhen()), calendar.snapshot().getMergedBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void queryBySnapshotMatchesQueryByEvents() {
+    List<Event> events = Arrays.asList(Events.events);
+    RecurringEvent standup = new RecurringEvent("Standup",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), RecurringEvent.DAILY,
+        Arrays.asList("Ava"));
+    EventStore store = new EventStore(events);
+    store.addRecurring(standup);
+    CalendarSnapshot snapshot = SnapshotCalendar.of(store).snapshot();
+    FindMeetingQuery query = new FindMeetingQuery();
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList("Ava", "Isabella"), 30),
+        new MeetingRequest(Arrays.asList("Noah", "Liam", "Oliver", "Emma", "Logan"), 45));
+    requests.get(0).addOptionalAttendee("Liam");
+    requests.get(1).setMaximizeOptionalAttendees(true);
+    requests.get(1).addOptionalAttendee("Amelia");
+
+    for (MeetingRequest request : requests) {
+      Collection<TimeRange> expected = query.query(store, request, TimeRange.fromDays(0, 3));
+      assertEquals(expected, query.query(snapshot, request, TimeRange.fromDays(0, 3)));
+    }
+  }
+
+  @Test
+  public void findsConflictsForProposedAttendees() {
+    // A clashes with Event 1 and Event 2, B with Event 2 only. Event 3 clashes with nobody who is
+    // proposed, and Event 4 ends when the meeting starts.
+    Event event1 = new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM + 30, 60),
+        Arrays.asList(PERSON_A));
+    Event event2 = new Event("Event 2", TimeRange.fromStartDuration(TIME_0800AM + 60, 30),
+        Arrays.asList(PERSON_A, PERSON_B, PERSON_C));
+    Event event3 = new Event("Event 3", TimeRange.fromStartDuration(TIME_0800AM + 60, 30),
+        Arrays.asList(PERSON_C));
+    Event event4 = new Event("Event 4", TimeRange.fromStartDuration(TIME_0800AM, 60),
+        Arrays.asList(PERSON_B));
+    CalendarSnapshot snapshot =
+        new SnapshotCalendar(Arrays.asList(event2, event3, event4, event1)).snapshot();
+    TimeRange proposed = TimeRange.fromStartDuration(TIME_0800AM + 60, 60);
+
+    List<Conflict> conflicts =
+        snapshot.findConflicts(proposed, Arrays.asList(PERSON_B, PERSON_A, "Nobody"));
+
+    assertEquals(2, conflicts.size());
+    assertEquals(event1, conflicts.get(0).getEvent());
+    assertEquals(Arrays.asList(PERSON_A), conflicts.get(0).getAttendees());
+    assertEquals(event2, conflicts.get(1).getEvent());
+    assertEquals(Arrays.asList(PERSON_B, PERSON_A), conflicts.get(1).getAttendees());
+  }
+
+  @Test
+  public void occurrencesOfRecurringEventsAreConflicts() {
+    RecurringEvent standup = new RecurringEvent("Standup",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), RecurringEvent.DAILY,
+        Arrays.asList(PERSON_A, PERSON_B));
+    CalendarSnapshot snapshot = new SnapshotCalendar(Collections.emptyList(),
+        Arrays.asList(standup)).snapshot();
+    TimeRange day = TimeRange.fromDays(1, 1);
+
+    List<Conflict> conflicts = snapshot.findConflicts(day, Arrays.asList(PERSON_B));
+
+    assertEquals(1, conflicts.size());
+    assertEquals(new Event("Standup",
+            TimeRange.fromStartDuration(day.start() + TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        conflicts.get(0).getEvent());
+    assertEquals(Arrays.asList(PERSON_B), conflicts.get(0).getAttendees());
+  }
+
+  @Test
+  public void conflictsMatchAScanOfEveryEvent() {
+    RecurringEvent standup = new RecurringEvent("Standup",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), RecurringEvent.DAILY,
+        Arrays.asList("Ava", "Liam"));
+    EventStore store = new EventStore(Arrays.asList(Events.events));
+    store.addRecurring(standup);
+    CalendarSnapshot snapshot = SnapshotCalendar.of(store).snapshot();
+
+    for (int start = 0; start < TimeRange.MINUTES_PER_DAY * 2; start += 90) {
+      TimeRange proposed = TimeRange.fromStartDuration(start, 120);
+      List<String> attendees = Arrays.asList("Liam", "Ava", "Noah", "Nobody");
+      assertEquals(describe(scanForConflicts(store, proposed, attendees)),
+          describe(snapshot.findConflicts(proposed, attendees)));
+    }
+  }
+
+  @Test
+  public void conflictsFollowWrites() {
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    Event event = new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_1_HOUR),
+        Arrays.asList(PERSON_A));
+    long first = calendar.add(event);
+    long second = calendar.add(event);
+    TimeRange proposed = TimeRange.fromStartDuration(TIME_0800AM + 30, DURATION_1_HOUR);
+
+    assertEquals(2, calendar.snapshot().findConflicts(proposed, Arrays.asList(PERSON_A)).size());
+    assertTrue(calendar.remove(first));
+    assertTrue(calendar.update(second, new Event("Event 2",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR), Arrays.asList(PERSON_B))));
+    assertEquals(Collections.emptyList(),
+        calendar.snapshot().findConflicts(proposed, Arrays.asList(PERSON_A)));
+    assertEquals(Arrays.asList(PERSON_B),
+        calendar.snapshot().findConflicts(proposed, Arrays.asList(PERSON_B)).get(0).getAttendees());
+  }
+
+  /**
+   * Finds the conflicts the slow way, by checking every event and occurrence in {@code store}.
+   */
+  private static List<Conflict> scanForConflicts(
+      EventStore store, TimeRange proposed, List<String> attendees) {
+    List<Event> events = new ArrayList<>(store.getEvents());
+    for (RecurringEvent event : store.getRecurringEvents()) {
+      for (TimeRange occurrence : event.getOccurrences(proposed)) {
+        events.add(new Event(event.getTitle(), occurrence, event.getAttendees()));
+      }
+    }
+    List<Conflict> conflicts = new ArrayList<>();
+    for (Event event : events) {
+      List<String> busy = new ArrayList<>();
+      for (String attendee : attendees) {
+        if (event.getAttendees().contains(attendee)) {
+          busy.add(attendee);
+        }
+      }
+      if (!busy.isEmpty() && event.getWhen().overlaps(proposed)) {
+        conflicts.add(new Conflict(event, busy));
+      }
+    }
+    conflicts.sort(
+        (a, b) -> TimeRange.ORDER_BY_START.compare(a.getEvent().getWhen(), b.getEvent().getWhen()));
+    return conflicts;
+  }
+
+  private static List<String> describe(List<Conflict> conflicts) {
+    List<String> descriptions = new ArrayList<>();
+    for (Conflict conflict : conflicts) {
+      descriptions.add(conflict.getEvent().getTitle() + " " + conflict.getEvent().getWhen() + " "
+          + conflict.getAttendees());
+    }
+    return descriptions;
+  }
+
+  @Test
+  public void concurrentWritersAreAllKept() throws InterruptedException {
+    SnapshotCalendar calendar = new SnapshotCalendar();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int thread = 0; thread < 4; thread++) {
+      String attendee = "Person " + thread;
+      executor.execute(() -> {
+        for (int i = 0; i < 500; i++) {
+          calendar.add(new Event("Event " + i, TimeRange.fromStartDuration(2 * i, 1),
+              Arrays.asList(attendee, PERSON_A)));
+        }
+      });
+    }
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+    CalendarSnapshot snapshot = calendar.snapshot();
+    assertEquals(2000, snapshot.size());
+    assertEquals(2000, snapshot.getEvents().lastKey().longValue());
+    assertEquals(500, snapshot.getMergedBusyTimes("Person 3").size());
+  }
+}
@@ -184,4 +184,20 @@ public final class TimeRangeTest {
     Assert.assertTrue(emptyMiddle.overlaps(range));
     Assert.assertTrue(emptyEnd.overlaps(range));
   }
+
+  @Test
+  public void timeInMinutesOnLaterDays() {
+    Assert.assertEquals(TimeRange.getTimeInMinutes(9, 30), TimeRange.getTimeInMinutes(0, 9, 30));
+    Assert.assertEquals(
+        TimeRange.MINUTES_PER_DAY * 2 + 90, TimeRange.getTimeInMinutes(2, 1, 30));
+  }
+
+  @Test
+  public void fromDaysSpansWholeDays() {
+    Assert.assertEquals(TimeRange.WHOLE_DAY, TimeRange.fromDays(0, 1));
+
+    TimeRange week = TimeRange.fromDays(7, 7);
+    Assert.assertEquals(TimeRange.getTimeInMinutes(7, 0, 0), week.start());
+    Assert.assertEquals(TimeRange.getTimeInMinutes(14, 0, 0), week.end());
+  }
 }
@@ -0,0 +1,55 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ZoneOffsetsTest {
+  // Days of the timeline, which starts on January 1st, 2020.
+  private static final int JANUARY_1ST = 0;
+  private static final int JULY_1ST = 182;
+
+  @Test
+  public void followsDaylightSavingTime() {
+    ZoneOffsets paris = ZoneOffsets.of("Europe/Paris");
+
+    assertEquals(60, paris.offsetOnDay(JANUARY_1ST));
+    assertEquals(120, paris.offsetOnDay(JULY_1ST));
+    assertEquals(60, paris.offsetOnDay(JANUARY_1ST + 366 * 3));
+  }
+
+  @Test
+  public void convertsWallClockMinutesToUtc() {
+    int nineAm = TimeRange.getTimeInMinutes(9, 0);
+    ZoneOffsets tokyo = ZoneOffsets.of("Asia/Tokyo");
+
+    assertEquals(0, tokyo.toUtc(nineAm));
+    assertEquals(TimeRange.MINUTES_PER_DAY * JULY_1ST,
+        tokyo.toUtc(TimeRange.MINUTES_PER_DAY * JULY_1ST + nineAm));
+    assertEquals(nineAm, ZoneOffsets.UTC.toUtc(nineAm));
+  }
+
+  @Test
+  public void cachesOffsetsPerZone() {
+    assertSame(ZoneOffsets.of("Europe/Paris"), ZoneOffsets.of("Europe/Paris"));
+    assertSame(ZoneOffsets.UTC, ZoneOffsets.of(null));
+  }
+}